@@ -0,0 +1,30 @@
+package com.bank.account.config;
+
+import com.bank.account.service.FileOutboxSink;
+import com.bank.account.service.LoggingOutboxSink;
+import com.bank.account.service.OutboxSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.nio.file.Path;
+
+@Configuration
+@EnableScheduling
+public class OutboxConfig {
+
+    // Declare another OutboxSink bean (e.g. a Kafka publisher) to replace the local default
+    @Bean
+    @ConditionalOnMissingBean(OutboxSink.class)
+    public OutboxSink outboxSink(@Value("${account.outbox.sink:file}") String sink,
+                                 @Value("${account.outbox.file:logs/account-events.ndjson}") String file,
+                                 ObjectMapper objectMapper) {
+        if ("log".equalsIgnoreCase(sink)) {
+            return new LoggingOutboxSink();
+        }
+        return new FileOutboxSink(Path.of(file), objectMapper);
+    }
+}
@@ -1,13 +1,26 @@
 package com.bank.account.controller;
 
+import com.bank.account.dto.AccountLookupRequest;
+import com.bank.account.dto.AccountPage;
 import com.bank.account.dto.AccountRequest;
+import com.bank.account.dto.BalanceLegResult;
+import com.bank.account.dto.BatchBalanceRequest;
+import com.bank.account.dto.TransferRequest;
+import com.bank.account.dto.TransferResponse;
 import com.bank.account.entity.Account;
+import com.bank.account.entity.OutboxEvent;
+import com.bank.account.service.AccountBatchService;
+import com.bank.account.service.AccountExportService;
 import com.bank.account.service.AccountService;
+import com.bank.account.service.OutboxService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -17,13 +30,25 @@ import java.util.List;
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
 public class AccountController {
+    private static final String NDJSON = "application/x-ndjson";
+
     private final AccountService accountService;
+    private final AccountBatchService accountBatchService;
+    private final AccountExportService accountExportService;
+    private final OutboxService outboxService;
 
     @PostMapping
     public ResponseEntity<Account> createAccount(@Valid @RequestBody AccountRequest request) {
         return new ResponseEntity<>(accountService.createAccount(request), HttpStatus.CREATED);
     }
 
+    // Append-only change feed: pass the last eventId seen as "after" to continue; 410 once it fell behind retention
+    @GetMapping("/events")
+    public ResponseEntity<List<OutboxEvent>> getEvents(@RequestParam(required = false) Long after,
+                                                       @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(outboxService.getEventsAfter(after, limit));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Account> getAccountById(@PathVariable Long id) {
         return ResponseEntity.ok(accountService.getAccountById(id));
@@ -39,6 +64,26 @@ public class AccountController {
         return ResponseEntity.ok(accountService.getAllAccounts());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<AccountPage> getAccountPage(
+            @RequestParam(required = false) Account.AccountStatus status,
+            @RequestParam(defaultValue = "accountId") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(accountService.getAccountPage(status, sort, direction, cursor, size));
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportAccounts(
+            @RequestParam(required = false) Account.AccountStatus status) {
+        StreamingResponseBody body = out -> accountExportService.writeAccounts(status, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"accounts.ndjson\"")
+                .body(body);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Account> updateAccount(@PathVariable Long id, @Valid @RequestBody AccountRequest request) {
         return ResponseEntity.ok(accountService.updateAccount(id, request));
@@ -69,6 +114,28 @@ public class AccountController {
         return ResponseEntity.ok(accountService.withdraw(id, amount));
     }
 
+    @PutMapping("/customer/{customerId}/customer-status")
+    public ResponseEntity<Void> updateCustomerStatus(@PathVariable Long customerId, @RequestParam String status) {
+        accountService.updateCustomerStatus(customerId, status);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/transfer")
+    public ResponseEntity<TransferResponse> transfer(@Valid @RequestBody TransferRequest request) {
+        return ResponseEntity.ok(accountService.transfer(
+                request.getFromAccountId(), request.getToAccountId(), request.getAmount()));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<BalanceLegResult>> applyBatch(@Valid @RequestBody BatchBalanceRequest request) {
+        return ResponseEntity.ok(accountBatchService.apply(request.getLegs()));
+    }
+
+    @PostMapping("/batch-lookup")
+    public ResponseEntity<List<Account>> lookupAccounts(@Valid @RequestBody AccountLookupRequest request) {
+        return ResponseEntity.ok(accountService.lookupAccounts(request.getAccountIds(), request.getAccountNumbers()));
+    }
+
     @GetMapping("/user/{username}")
     public ResponseEntity<List<Account>> getAccountsByUsername(@PathVariable String username) {
         return ResponseEntity.ok(accountService.getAccountsByUsername(username));
@@ -0,0 +1,19 @@
+package com.bank.account.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountLookupRequest {
+    @Size(max = 1000, message = "At most 1000 account IDs per lookup")
+    private Set<Long> accountIds;
+
+    @Size(max = 1000, message = "At most 1000 account numbers per lookup")
+    private Set<String> accountNumbers;
+}
@@ -0,0 +1,17 @@
+package com.bank.account.dto;
+
+import com.bank.account.entity.Account;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountPage {
+    private List<Account> accounts;
+    private String nextCursor;
+    private boolean hasMore;
+}
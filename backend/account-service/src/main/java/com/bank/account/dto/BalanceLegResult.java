@@ -0,0 +1,14 @@
+package com.bank.account.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceLegResult {
+    private int index;
+    private boolean applied;
+    private String message;
+}
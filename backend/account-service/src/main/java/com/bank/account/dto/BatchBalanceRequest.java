@@ -0,0 +1,17 @@
+package com.bank.account.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchBalanceRequest {
+    @NotEmpty(message = "At least one leg is required")
+    private List<@Valid BalanceLeg> legs;
+}
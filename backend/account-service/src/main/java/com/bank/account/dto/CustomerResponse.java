@@ -14,4 +14,5 @@ public class CustomerResponse {
     private String email;
     private String phone;
     private String address;
+    private String status;
 }
@@ -0,0 +1,14 @@
+package com.bank.account.dto;
+
+import com.bank.account.entity.Account;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferResponse {
+    private Account fromAccount;
+    private Account toAccount;
+}
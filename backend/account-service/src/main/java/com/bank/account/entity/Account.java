@@ -9,7 +9,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "accounts")
+@Table(name = "accounts", indexes =
+        @Index(name = "idx_accounts_created_at", columnList = "created_at, account_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -23,6 +24,7 @@ public class Account {
     @Column(nullable = false)
     private Long customerId;
 
+    // Assigned by AccountNumberAllocator
     @Column(unique = true, nullable = false)
     private String accountNumber;
 
@@ -44,24 +46,22 @@ public class Account {
 
     private LocalDateTime closedAt;
 
+    // Denormalized from customer-service so money movements can be validated with one lookup
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private CustomerStatus customerStatus = CustomerStatus.ACTIVE;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         if (balance == null) {
             balance = BigDecimal.ZERO;
         }
-        if (accountNumber == null) {
-            accountNumber = generateAccountNumber();
-        }
         if (status == null) {
             status = AccountStatus.ACTIVE;
         }
     }
 
-    private String generateAccountNumber() {
-        return "ACC" + System.currentTimeMillis();
-    }
-
     public enum AccountType {
         SAVINGS, CHECKING, CURRENT
     }
@@ -69,4 +69,8 @@ public class Account {
     public enum AccountStatus {
         ACTIVE, CLOSED, FROZEN
     }
+
+    public enum CustomerStatus {
+        ACTIVE, INACTIVE, SUSPENDED
+    }
 }
@@ -0,0 +1,39 @@
+package com.bank.account.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One leased range of account numbers, [rangeStart, rangeEnd). Each block starts where the highest stored
+ * block ends, and the unique rangeStart makes a concurrent lease of the same range fail, so ranges never
+ * overlap even when nodes use different block sizes. Rows double as a record of which node took which range.
+ */
+@Entity
+@Table(name = "account_number_blocks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountNumberBlock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_number_block_seq")
+    @SequenceGenerator(name = "account_number_block_seq", sequenceName = "account_number_block_seq", allocationSize = 1)
+    private Long blockId;
+
+    @Column(nullable = false)
+    private int blockSize;
+
+    // Null only on blocks leased before ranges were stored; those covered blockId * blockSize onwards
+    @Column(unique = true)
+    private Long rangeStart;
+
+    private Long rangeEnd;
+
+    @Column(nullable = false)
+    private String leasedBy;
+
+    @Column(nullable = false)
+    private LocalDateTime leasedAt;
+}
@@ -0,0 +1,8 @@
+package com.bank.account.exception;
+
+// An IllegalStateException so callers that only care about "not allowed right now" keep working
+public class AccountNotActiveException extends IllegalStateException {
+    public AccountNotActiveException(String message) {
+        super(message);
+    }
+}
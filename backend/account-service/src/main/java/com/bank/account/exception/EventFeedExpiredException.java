@@ -0,0 +1,7 @@
+package com.bank.account.exception;
+
+public class EventFeedExpiredException extends RuntimeException {
+    public EventFeedExpiredException(String message) {
+        super(message);
+    }
+}
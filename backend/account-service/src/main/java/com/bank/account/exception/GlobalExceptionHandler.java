@@ -16,17 +16,37 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(AccountNotFoundException.class)
     public ResponseEntity<Map<String, Object>> handleAccountNotFound(AccountNotFoundException ex) {
-        return buildErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND);
+        return buildErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
     }
 
     @ExceptionHandler(CustomerNotFoundException.class)
     public ResponseEntity<Map<String, Object>> handleCustomerNotFound(CustomerNotFoundException ex) {
-        return buildErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND);
+        return buildErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND, "CUSTOMER_NOT_FOUND");
     }
 
     @ExceptionHandler(InsufficientBalanceException.class)
     public ResponseEntity<Map<String, Object>> handleInsufficientBalance(InsufficientBalanceException ex) {
-        return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST);
+        return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST, "INSUFFICIENT_BALANCE");
+    }
+
+    @ExceptionHandler(AccountNotActiveException.class)
+    public ResponseEntity<Map<String, Object>> handleAccountNotActive(AccountNotActiveException ex) {
+        return buildErrorResponse(ex.getMessage(), HttpStatus.CONFLICT, "ACCOUNT_NOT_ACTIVE");
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalState(IllegalStateException ex) {
+        return buildErrorResponse(ex.getMessage(), HttpStatus.CONFLICT, "INVALID_STATE");
+    }
+
+    @ExceptionHandler(EventFeedExpiredException.class)
+    public ResponseEntity<Map<String, Object>> handleEventFeedExpired(EventFeedExpiredException ex) {
+        return buildErrorResponse(ex.getMessage(), HttpStatus.GONE, "EVENT_FEED_EXPIRED");
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgument(IllegalArgumentException ex) {
+        return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST, "INVALID_REQUEST");
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -40,14 +60,17 @@ public class GlobalExceptionHandler {
         Map<String, Object> response = new HashMap<>();
         response.put("timestamp", LocalDateTime.now());
         response.put("status", HttpStatus.BAD_REQUEST.value());
+        response.put("code", "VALIDATION_FAILED");
         response.put("errors", errors);
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
-    private ResponseEntity<Map<String, Object>> buildErrorResponse(String message, HttpStatus status) {
+    // code is the stable, machine-readable reason other services map on; message is for people
+    private ResponseEntity<Map<String, Object>> buildErrorResponse(String message, HttpStatus status, String code) {
         Map<String, Object> response = new HashMap<>();
         response.put("timestamp", LocalDateTime.now());
         response.put("status", status.value());
+        response.put("code", code);
         response.put("message", message);
         return new ResponseEntity<>(response, status);
     }
@@ -0,0 +1,12 @@
+package com.bank.account.repository;
+
+import com.bank.account.entity.AccountNumberBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface AccountNumberBlockRepository extends JpaRepository<AccountNumberBlock, Long> {
+
+    // End of the highest range leased so far, counting blocks from before ranges were stored
+    @Query("SELECT COALESCE(MAX(COALESCE(b.rangeEnd, (b.blockId + 1) * b.blockSize)), 0) FROM AccountNumberBlock b")
+    long findHighestRangeEnd();
+}
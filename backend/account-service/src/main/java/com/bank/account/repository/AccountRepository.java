@@ -1,11 +1,22 @@
 package com.bank.account.repository;
 
 import com.bank.account.entity.Account;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
@@ -15,4 +26,64 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findByAccountNumberAndStatus(String accountNumber, Account.AccountStatus status);
     boolean existsByAccountNumber(String accountNumber);
     List<Account> findByStatus(Account.AccountStatus status);
+    List<Account> findByAccountIdIn(Collection<Long> accountIds);
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+    List<Account> findByAccountIdInOrAccountNumberIn(Collection<Long> accountIds, Collection<String> accountNumbers);
+
+    // First page of a listing; the sort comes in with the Pageable
+    List<Account> findByStatusIn(Collection<Account.AccountStatus> statuses, Pageable pageable);
+
+    // Keyset continuations: rows strictly after the (createdAt, accountId) of the previous page's last row
+    @Query("SELECT a FROM Account a WHERE a.status IN :statuses AND a.accountId > :cursorId " +
+           "ORDER BY a.accountId ASC")
+    List<Account> findByStatusInAfterIdAsc(@Param("statuses") Collection<Account.AccountStatus> statuses,
+                                           @Param("cursorId") Long cursorId,
+                                           Pageable pageable);
+
+    @Query("SELECT a FROM Account a WHERE a.status IN :statuses AND a.accountId < :cursorId " +
+           "ORDER BY a.accountId DESC")
+    List<Account> findByStatusInAfterIdDesc(@Param("statuses") Collection<Account.AccountStatus> statuses,
+                                            @Param("cursorId") Long cursorId,
+                                            Pageable pageable);
+
+    @Query("SELECT a FROM Account a WHERE a.status IN :statuses " +
+           "AND (a.createdAt > :cursorTime OR (a.createdAt = :cursorTime AND a.accountId > :cursorId)) " +
+           "ORDER BY a.createdAt ASC, a.accountId ASC")
+    List<Account> findByStatusInAfterCreatedAtAsc(@Param("statuses") Collection<Account.AccountStatus> statuses,
+                                                  @Param("cursorTime") LocalDateTime cursorTime,
+                                                  @Param("cursorId") Long cursorId,
+                                                  Pageable pageable);
+
+    @Query("SELECT a FROM Account a WHERE a.status IN :statuses " +
+           "AND (a.createdAt < :cursorTime OR (a.createdAt = :cursorTime AND a.accountId < :cursorId)) " +
+           "ORDER BY a.createdAt DESC, a.accountId DESC")
+    List<Account> findByStatusInAfterCreatedAtDesc(@Param("statuses") Collection<Account.AccountStatus> statuses,
+                                                   @Param("cursorTime") LocalDateTime cursorTime,
+                                                   @Param("cursorId") Long cursorId,
+                                                   Pageable pageable);
+
+    // Read through a server-side cursor; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT a FROM Account a WHERE a.status IN :statuses ORDER BY a.accountId ASC")
+    Stream<Account> streamByStatusIn(@Param("statuses") Collection<Account.AccountStatus> statuses);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.customerStatus = :customerStatus WHERE a.customerId = :customerId")
+    int updateCustomerStatus(@Param("customerId") Long customerId,
+                             @Param("customerStatus") Account.CustomerStatus customerStatus);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount " +
+           "WHERE a.accountId = :accountId AND a.status = 'ACTIVE'")
+    int credit(@Param("accountId") Long accountId, @Param("amount") BigDecimal amount);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount " +
+           "WHERE a.accountId = :accountId AND a.balance >= :amount " +
+           "AND a.status = 'ACTIVE'")
+    int debit(@Param("accountId") Long accountId, @Param("amount") BigDecimal amount);
 }
@@ -0,0 +1,48 @@
+package com.bank.account.repository;
+
+import com.bank.account.entity.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    // FOR UPDATE SKIP LOCKED: concurrent relays on other replicas take disjoint batches (-2 = SKIP_LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.publishedAt IS NULL ORDER BY e.eventId")
+    List<OutboxEvent> lockUnpublished(Pageable pageable);
+
+    // Events created before visibleBefore only: a row with a lower id may still be uncommitted until then
+    @Query("SELECT e FROM OutboxEvent e WHERE e.eventId > :eventId AND e.createdAt < :visibleBefore ORDER BY e.eventId")
+    List<OutboxEvent> findFeedPage(@Param("eventId") Long eventId, @Param("visibleBefore") LocalDateTime visibleBefore,
+                                   Pageable pageable);
+
+    @Query("SELECT MIN(e.eventId) FROM OutboxEvent e")
+    Long findOldestEventId();
+
+    @Query("SELECT MAX(e.eventId) FROM OutboxEvent e")
+    Long findNewestEventId();
+
+    @Query("SELECT MIN(e.eventId) FROM OutboxEvent e WHERE e.publishedAt IS NULL OR e.publishedAt >= :cutoff")
+    Long findFirstRetainedEventId(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.publishedAt = :publishedAt WHERE e.eventId IN :eventIds")
+    int markPublished(@Param("eventIds") List<Long> eventIds, @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.eventId < :eventId")
+    int deleteBefore(@Param("eventId") Long eventId);
+}
@@ -0,0 +1,122 @@
+package com.bank.account.service;
+
+import com.bank.account.dto.BalanceLeg;
+import com.bank.account.dto.BalanceLegResult;
+import com.bank.account.entity.Account;
+import com.bank.account.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@Slf4j
+public class AccountBatchService {
+    private final AccountRepository accountRepository;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public AccountBatchService(AccountRepository accountRepository,
+                               OutboxService outboxService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${account.batch.chunk-size:200}") int chunkSize) {
+        this.accountRepository = accountRepository;
+        this.outboxService = outboxService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public List<BalanceLegResult> apply(List<BalanceLeg> legs) {
+        List<BalanceLegResult> results = new ArrayList<>(legs.size());
+        for (int start = 0; start < legs.size(); start += chunkSize) {
+            int offset = start;
+            List<BalanceLeg> chunk = legs.subList(start, Math.min(start + chunkSize, legs.size()));
+            try {
+                // One DB transaction per chunk; rejected legs are reported, not thrown, so the chunk still commits
+                results.addAll(transactionTemplate.execute(status -> applyChunk(chunk, offset)));
+            } catch (RuntimeException e) {
+                log.warn("Batch chunk starting at leg {} rolled back", offset, e);
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(new BalanceLegResult(offset + i, false, "Chunk rolled back: " + e.getMessage()));
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<BalanceLegResult> applyChunk(List<BalanceLeg> chunk, int offset) {
+        List<BalanceLegResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            BalanceLeg leg = chunk.get(i);
+            String rejection = applyLeg(leg);
+            if (rejection == null) {
+                recordEvents(leg);
+            }
+            results.add(new BalanceLegResult(offset + i, rejection == null, rejection));
+        }
+        return results;
+    }
+
+    private String applyLeg(BalanceLeg leg) {
+        Long from = leg.getFromAccountId();
+        Long to = leg.getToAccountId();
+        BigDecimal amount = leg.getAmount();
+        if (from == null && to == null) {
+            return "Leg needs a from or to account";
+        }
+        if (from != null && from.equals(to)) {
+            return "Cannot transfer to the same account";
+        }
+        if (from == null) {
+            return accountRepository.credit(to, amount) == 0 ? rejection(to, amount) : null;
+        }
+        if (to == null) {
+            return accountRepository.debit(from, amount) == 0 ? rejection(from, amount) : null;
+        }
+
+        // Same lock order as AccountService.transfer; undo the first update if the second one is rejected
+        boolean debitFirst = from < to;
+        Long firstId = debitFirst ? from : to;
+        Long secondId = debitFirst ? to : from;
+        int first = debitFirst ? accountRepository.debit(from, amount) : accountRepository.credit(to, amount);
+        if (first == 0) {
+            return rejection(firstId, amount);
+        }
+        int second = debitFirst ? accountRepository.credit(to, amount) : accountRepository.debit(from, amount);
+        if (second == 0) {
+            // The undo goes through the same conditional update; if even that is refused, roll the chunk back
+            int undone = debitFirst ? accountRepository.credit(from, amount) : accountRepository.debit(to, amount);
+            if (undone == 0) {
+                throw new IllegalStateException("Could not undo the first half of a transfer on account " + firstId);
+            }
+            return rejection(secondId, amount);
+        }
+        return null;
+    }
+
+    private void recordEvents(BalanceLeg leg) {
+        if (leg.getFromAccountId() != null) {
+            outboxService.recordDebit(leg.getFromAccountId(), leg.getAmount());
+        }
+        if (leg.getToAccountId() != null) {
+            outboxService.recordCredit(leg.getToAccountId(), leg.getAmount());
+        }
+    }
+
+    private String rejection(Long accountId, BigDecimal amount) {
+        Account account = accountRepository.findById(accountId).orElse(null);
+        if (account == null) {
+            return "Account not found with id: " + accountId;
+        }
+        if (account.getStatus() != Account.AccountStatus.ACTIVE) {
+            return "Account " + account.getAccountNumber() + " is " + account.getStatus().name().toLowerCase();
+        }
+        return "Insufficient balance in account " + account.getAccountNumber();
+    }
+}
@@ -0,0 +1,42 @@
+package com.bank.account.service;
+
+import com.bank.account.entity.Account;
+import com.bank.account.repository.AccountRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class AccountExportService {
+    private final AccountRepository accountRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    // Rows come off a JDBC cursor and are detached once written, so heap use does not grow with table size
+    @Transactional(readOnly = true)
+    public void writeAccounts(Account.AccountStatus status, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<Account> rows = accountRepository.streamByStatusIn(AccountService.statuses(status))) {
+            Iterator<Account> it = rows.iterator();
+            while (it.hasNext()) {
+                Account account = it.next();
+                writer.write(objectMapper.writeValueAsString(account));
+                writer.write('\n');
+                entityManager.detach(account);
+            }
+        }
+        writer.flush();
+    }
+}
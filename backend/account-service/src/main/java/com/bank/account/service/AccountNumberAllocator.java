@@ -0,0 +1,141 @@
+package com.bank.account.service;
+
+import com.bank.account.entity.AccountNumberBlock;
+import com.bank.account.repository.AccountNumberBlockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out account numbers from a block leased in account_number_blocks. Each lease stores its range, starting
+ * where the highest stored range ends, so the block size may change between deploys or differ between
+ * replicas without ranges overlapping. Within a block, numbers come from an atomic counter, so concurrent account creation neither collides nor
+ * contends; the database is touched once per block. Numbers are "ACC" + 10 digits + a Luhn check digit.
+ * Legacy "ACC" + millis numbers have 13 digits, so the two formats never overlap.
+ * Numbers left in a block when a node stops are skipped, not reused.
+ */
+@Component
+@Slf4j
+public class AccountNumberAllocator {
+    private static final String PREFIX = "ACC";
+    private static final long MAX_NUMBER = 9_999_999_999L;
+    private static final int MAX_LEASE_ATTEMPTS = 10;
+
+    private final AccountNumberBlockRepository blockRepository;
+    private final TransactionTemplate leaseTransaction;
+    private final int blockSize;
+    private final String nodeName;
+    private volatile Block current = new Block(0, 0);
+
+    public AccountNumberAllocator(AccountNumberBlockRepository blockRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${account.number.block-size:1000}") int blockSize) {
+        this.blockRepository = blockRepository;
+        // The lease must commit even if the account insert that triggered it rolls back
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+        this.nodeName = hostName();
+    }
+
+    public String next() {
+        while (true) {
+            Block block = current;
+            long number = block.next.getAndIncrement();
+            if (number < block.end) {
+                return format(number);
+            }
+            leaseIfExhausted(block);
+        }
+    }
+
+    static String format(long number) {
+        String digits = String.format("%010d", number);
+        return PREFIX + digits + luhnCheckDigit(digits);
+    }
+
+    public static boolean isValid(String accountNumber) {
+        if (accountNumber == null || !accountNumber.startsWith(PREFIX) || accountNumber.length() != PREFIX.length() + 11) {
+            return false;
+        }
+        String digits = accountNumber.substring(PREFIX.length(), accountNumber.length() - 1);
+        return digits.chars().allMatch(Character::isDigit)
+                && luhnCheckDigit(digits) == accountNumber.charAt(accountNumber.length() - 1) - '0';
+    }
+
+    private synchronized void leaseIfExhausted(Block exhausted) {
+        // Only the first thread to find the block empty leases; the rest pick up its block
+        if (current != exhausted) {
+            return;
+        }
+        AccountNumberBlock lease = null;
+        for (int attempt = 1; lease == null; attempt++) {
+            try {
+                lease = leaseTransaction.execute(status -> {
+                    long start = blockRepository.findHighestRangeEnd();
+                    if (start + blockSize - 1 > MAX_NUMBER) {
+                        throw new IllegalStateException("Account number space exhausted");
+                    }
+                    return blockRepository.saveAndFlush(AccountNumberBlock.builder()
+                            .blockSize(blockSize)
+                            .rangeStart(start)
+                            .rangeEnd(start + blockSize)
+                            .leasedBy(nodeName)
+                            .leasedAt(LocalDateTime.now())
+                            .build());
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Another node leased the same range first; start again from its end
+                if (attempt == MAX_LEASE_ATTEMPTS) {
+                    throw new IllegalStateException("Could not lease an account number block", e);
+                }
+            }
+        }
+        log.info("Leased account number block {} ({}..{})", lease.getBlockId(), lease.getRangeStart(), lease.getRangeEnd() - 1);
+        current = new Block(lease.getRangeStart(), lease.getRangeEnd());
+    }
+
+    private static int luhnCheckDigit(String digits) {
+        int sum = 0;
+        boolean doubleDigit = true;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int d = digits.charAt(i) - '0';
+            if (doubleDigit) {
+                d *= 2;
+                if (d > 9) {
+                    d -= 9;
+                }
+            }
+            sum += d;
+            doubleDigit = !doubleDigit;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
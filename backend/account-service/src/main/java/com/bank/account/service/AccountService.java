@@ -1,13 +1,20 @@
 package com.bank.account.service;
 
+import com.bank.account.dto.AccountPage;
 import com.bank.account.dto.AccountRequest;
 import com.bank.account.dto.CustomerResponse;
+import com.bank.account.dto.TransferResponse;
 import com.bank.account.entity.Account;
+import com.bank.account.exception.AccountNotActiveException;
 import com.bank.account.exception.AccountNotFoundException;
 import com.bank.account.exception.CustomerNotFoundException;
 import com.bank.account.exception.InsufficientBalanceException;
 import com.bank.account.repository.AccountRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,7 +22,15 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -23,12 +38,20 @@ import java.util.List;
 public class AccountService {
     private final AccountRepository accountRepository;
     private final WebClient customerServiceWebClient;
+    private final OutboxService outboxService;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountStatusNotifier accountStatusNotifier;
+
+    @Value("${account.list.max-page-size:200}")
+    private int maxPageSize;
 
     public Account createAccount(AccountRequest request) {
-        validateCustomerExists(request.getCustomerId());
+        Account.CustomerStatus customerStatus = fetchCustomerStatus(request.getCustomerId());
         
         Account account = Account.builder()
                 .customerId(request.getCustomerId())
+                .accountNumber(accountNumberAllocator.next())
+                .customerStatus(customerStatus)
                 .accountType(request.getAccountType())
                 .balance(request.getInitialBalance() != null ? request.getInitialBalance() : BigDecimal.ZERO)
                 .build();
@@ -52,11 +75,111 @@ public class AccountService {
         return accountRepository.findAll();
     }
 
+    /**
+     * Resolves any mix of ids and account numbers with one query; unknown keys are simply absent from the result.
+     */
+    @Transactional(readOnly = true)
+    public List<Account> lookupAccounts(Collection<Long> accountIds, Collection<String> accountNumbers) {
+        boolean hasIds = accountIds != null && !accountIds.isEmpty();
+        boolean hasNumbers = accountNumbers != null && !accountNumbers.isEmpty();
+        if (hasIds && hasNumbers) {
+            return accountRepository.findByAccountIdInOrAccountNumberIn(accountIds, accountNumbers);
+        }
+        if (hasIds) {
+            return accountRepository.findByAccountIdIn(accountIds);
+        }
+        if (hasNumbers) {
+            return accountRepository.findByAccountNumberIn(accountNumbers);
+        }
+        throw new IllegalArgumentException("At least one account ID or account number is required");
+    }
+
+    /**
+     * Keyset-paginated listing sorted by accountId or createdAt; pass the returned nextCursor to continue.
+     */
+    @Transactional(readOnly = true)
+    public AccountPage getAccountPage(Account.AccountStatus status, String sort, String direction,
+                                      String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        boolean byCreatedAt = parseSortByCreatedAt(sort);
+        boolean descending = parseDescending(direction);
+        Collection<Account.AccountStatus> statuses = statuses(status);
+
+        // Fetch one extra row to know whether another page exists
+        List<Account> rows;
+        if (cursor == null || cursor.isBlank()) {
+            Sort.Direction dir = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+            Sort order = byCreatedAt ? Sort.by(dir, "createdAt", "accountId") : Sort.by(dir, "accountId");
+            rows = accountRepository.findByStatusIn(statuses, PageRequest.of(0, pageSize + 1, order));
+        } else {
+            String[] parts = decodeCursor(cursor);
+            LocalDateTime cursorTime = LocalDateTime.parse(parts[0]);
+            Long cursorId = Long.parseLong(parts[1]);
+            PageRequest limit = PageRequest.of(0, pageSize + 1);
+            if (byCreatedAt) {
+                rows = descending
+                        ? accountRepository.findByStatusInAfterCreatedAtDesc(statuses, cursorTime, cursorId, limit)
+                        : accountRepository.findByStatusInAfterCreatedAtAsc(statuses, cursorTime, cursorId, limit);
+            } else {
+                rows = descending
+                        ? accountRepository.findByStatusInAfterIdDesc(statuses, cursorId, limit)
+                        : accountRepository.findByStatusInAfterIdAsc(statuses, cursorId, limit);
+            }
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Account> page = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+        return new AccountPage(page, nextCursor, hasMore);
+    }
+
+    static Collection<Account.AccountStatus> statuses(Account.AccountStatus status) {
+        return status != null ? List.of(status) : EnumSet.allOf(Account.AccountStatus.class);
+    }
+
+    private boolean parseSortByCreatedAt(String sort) {
+        if (sort == null || sort.equals("accountId")) {
+            return false;
+        }
+        if (sort.equals("createdAt")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Invalid sort. Must be accountId or createdAt");
+    }
+
+    private boolean parseDescending(String direction) {
+        if (direction == null || direction.equalsIgnoreCase("asc")) {
+            return false;
+        }
+        if (direction.equalsIgnoreCase("desc")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Invalid direction. Must be asc or desc");
+    }
+
+    private String encodeCursor(Account last) {
+        String raw = last.getCreatedAt() + "|" + last.getAccountId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
     public Account updateAccount(Long id, AccountRequest request) {
         Account account = getAccountById(id);
         if (!account.getCustomerId().equals(request.getCustomerId())) {
-            validateCustomerExists(request.getCustomerId());
+            Account.CustomerStatus customerStatus = fetchCustomerStatus(request.getCustomerId());
             account.setCustomerId(request.getCustomerId());
+            account.setCustomerStatus(customerStatus);
+            accountStatusNotifier.accountStatusChanged(id);
         }
         account.setAccountType(request.getAccountType());
         return accountRepository.save(account);
@@ -72,6 +195,7 @@ public class AccountService {
         }
         account.setStatus(Account.AccountStatus.CLOSED);
         account.setClosedAt(java.time.LocalDateTime.now());
+        accountStatusNotifier.accountStatusChanged(id);
         return accountRepository.save(account);
     }
 
@@ -100,22 +224,51 @@ public class AccountService {
         } else {
             account.setClosedAt(null);
         }
+        accountStatusNotifier.accountStatusChanged(id);
         return accountRepository.save(account);
     }
 
+    public int updateCustomerStatus(Long customerId, String status) {
+        Account.CustomerStatus customerStatus;
+        try {
+            customerStatus = Account.CustomerStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid customer status. Must be ACTIVE, INACTIVE, or SUSPENDED");
+        }
+        accountStatusNotifier.customerStatusChanged(customerId);
+        return accountRepository.updateCustomerStatus(customerId, customerStatus);
+    }
+
     public Account deposit(Long accountId, BigDecimal amount) {
-        Account account = getAccountById(accountId);
-        account.setBalance(account.getBalance().add(amount));
-        return accountRepository.save(account);
+        if (accountRepository.credit(accountId, amount) == 0) {
+            rejectBalanceUpdate(accountId, "deposit");
+        }
+        outboxService.recordCredit(accountId, amount);
+        return getAccountById(accountId);
     }
 
     public Account withdraw(Long accountId, BigDecimal amount) {
-        Account account = getAccountById(accountId);
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientBalanceException("Insufficient balance for withdrawal");
+        if (accountRepository.debit(accountId, amount) == 0) {
+            rejectBalanceUpdate(accountId, "withdrawal");
         }
-        account.setBalance(account.getBalance().subtract(amount));
-        return accountRepository.save(account);
+        outboxService.recordDebit(accountId, amount);
+        return getAccountById(accountId);
+    }
+
+    public TransferResponse transfer(Long fromAccountId, Long toAccountId, BigDecimal amount) {
+        if (fromAccountId.equals(toAccountId)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+
+        // Update the lower account id first so concurrent opposite transfers take row locks in the same order
+        if (fromAccountId < toAccountId) {
+            debitForTransfer(fromAccountId, amount);
+            creditForTransfer(toAccountId, amount);
+        } else {
+            creditForTransfer(toAccountId, amount);
+            debitForTransfer(fromAccountId, amount);
+        }
+        return new TransferResponse(getAccountById(fromAccountId), getAccountById(toAccountId));
     }
 
     @Transactional(readOnly = true)
@@ -143,13 +296,54 @@ public class AccountService {
                 .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountNumber));
     }
 
-    private void validateCustomerExists(Long customerId) {
-        customerServiceWebClient.get()
-                .uri("/customers/{id}", customerId)
+    private void debitForTransfer(Long accountId, BigDecimal amount) {
+        if (accountRepository.debit(accountId, amount) == 0) {
+            rejectBalanceUpdate(accountId, "transfer");
+        }
+        outboxService.recordDebit(accountId, amount);
+    }
+
+    private void creditForTransfer(Long accountId, BigDecimal amount) {
+        if (accountRepository.credit(accountId, amount) == 0) {
+            rejectBalanceUpdate(accountId, "transfer");
+        }
+        outboxService.recordCredit(accountId, amount);
+    }
+
+    private void rejectBalanceUpdate(Long accountId, String operation) {
+        // The conditional update matched no row: work out which condition failed
+        Account account = getAccountById(accountId);
+        if (account.getStatus() != Account.AccountStatus.ACTIVE) {
+            throw new AccountNotActiveException("Account " + account.getAccountNumber() + " is "
+                    + account.getStatus().name().toLowerCase() + ". Transactions are not allowed.");
+        }
+        throw new InsufficientBalanceException("Insufficient balance for " + operation);
+    }
+
+    // Only the status is needed, so ask for it rather than the whole customer profile
+    private Account.CustomerStatus fetchCustomerStatus(Long customerId) {
+        Map<Long, String> statuses = customerServiceWebClient.post()
+                .uri("/customers/batch-status")
+                .bodyValue(Map.of("customerIds", List.of(customerId)))
                 .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError, 
+                .onStatus(HttpStatusCode::is4xxClientError,
                     response -> Mono.error(new CustomerNotFoundException("Customer not found with id: " + customerId)))
-                .bodyToMono(Object.class)
+                .bodyToMono(new ParameterizedTypeReference<Map<Long, String>>() {})
                 .block();
+        if (statuses == null || !statuses.containsKey(customerId)) {
+            throw new CustomerNotFoundException("Customer not found with id: " + customerId);
+        }
+        return toCustomerStatus(statuses.get(customerId));
+    }
+
+    private Account.CustomerStatus toCustomerStatus(String status) {
+        if (status == null) {
+            return Account.CustomerStatus.ACTIVE;
+        }
+        try {
+            return Account.CustomerStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown customer status: " + status);
+        }
     }
 }
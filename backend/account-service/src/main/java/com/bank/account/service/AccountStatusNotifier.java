@@ -0,0 +1,48 @@
+package com.bank.account.service;
+
+import com.bank.security.InstanceBroadcaster;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tells every transaction-service instance to drop its cached status of a changed account, or of all
+ * accounts of a customer. Sent after commit so a reload cannot read the old row; delivery is best effort
+ * because the cache TTL bounds staleness, and account-service re-checks status on every balance update.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountStatusNotifier {
+    private static final String TRANSACTION_SERVICE = "transaction-service";
+
+    private final InstanceBroadcaster instanceBroadcaster;
+
+    public void accountStatusChanged(Long accountId) {
+        afterCommit(Map.of("accountIds", List.of(accountId)));
+    }
+
+    public void customerStatusChanged(Long customerId) {
+        afterCommit(Map.of("customerIds", List.of(customerId)));
+    }
+
+    private void afterCommit(Map<String, Object> notification) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(notification);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                send(notification);
+            }
+        });
+    }
+
+    private void send(Map<String, Object> notification) {
+        instanceBroadcaster.post(TRANSACTION_SERVICE, "/transactions/status-cache/invalidate", notification);
+    }
+}
@@ -0,0 +1,16 @@
+package com.bank.account.service;
+
+import com.bank.account.entity.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+@Slf4j
+public class LoggingOutboxSink implements OutboxSink {
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        events.forEach(event -> log.info("Account event {} {} {} on account {}",
+                event.getEventId(), event.getEventType(), event.getAmount(), event.getAccountId()));
+    }
+}
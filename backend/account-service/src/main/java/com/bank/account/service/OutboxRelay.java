@@ -0,0 +1,92 @@
+package com.bank.account.service;
+
+import com.bank.account.entity.OutboxEvent;
+import com.bank.account.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@Slf4j
+public class OutboxRelay {
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink outboxSink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxSink outboxSink,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${account.outbox.batch-size:500}") int batchSize,
+                       @Value("${account.outbox.retention:7d}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxSink = outboxSink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${account.outbox.relay-interval:PT1S}")
+    public void relay() {
+        // Drain full batches back to back so a backlog clears without waiting for the next tick
+        int published;
+        do {
+            published = relayBatch();
+        } while (published == batchSize);
+    }
+
+    /**
+     * Deletes the oldest events once they were published more than the retention ago. Only a contiguous
+     * prefix is removed, up to the first pending or recently published event and always keeping the newest,
+     * so the feed can tell a cursor that fell behind the purge (410) from one that is up to date. The retention
+     * is therefore the minimum time a feed consumer has to catch up.
+     */
+    @Scheduled(fixedDelayString = "${account.outbox.purge-interval:PT1H}")
+    public void purgePublished() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        Integer removed = transactionTemplate.execute(status -> {
+            Long boundary = outboxEventRepository.findFirstRetainedEventId(cutoff);
+            if (boundary == null) {
+                boundary = outboxEventRepository.findNewestEventId();
+            }
+            return boundary != null ? outboxEventRepository.deleteBefore(boundary) : 0;
+        });
+        if (removed != null && removed > 0) {
+            log.debug("Purged {} published outbox events", removed);
+        }
+    }
+
+    // Returns how many events were published; the sink is called before marking, so delivery is at-least-once.
+    // Rows stay locked until marked, and replicas skip locked rows, so each event is relayed by one replica
+    public int relayBatch() {
+        try {
+            Integer published = transactionTemplate.execute(status -> {
+                List<OutboxEvent> events = outboxEventRepository.lockUnpublished(PageRequest.of(0, batchSize));
+                if (events.isEmpty()) {
+                    return 0;
+                }
+                try {
+                    outboxSink.publish(events);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Outbox sink rejected batch", e);
+                }
+                outboxEventRepository.markPublished(events.stream().map(OutboxEvent::getEventId).toList(),
+                        LocalDateTime.now());
+                return events.size();
+            });
+            return published != null ? published : 0;
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay failed; events stay pending and will be retried", e);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.bank.account.service;
+
+import com.bank.account.entity.OutboxEvent;
+import com.bank.account.exception.EventFeedExpiredException;
+import com.bank.account.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+    private final OutboxEventRepository outboxEventRepository;
+
+    @Value("${account.outbox.max-feed-size:500}")
+    private int maxFeedSize;
+
+    // Must exceed the longest transaction that records an event, so a lower id never commits behind the cursor
+    @Value("${account.outbox.feed-lag:5s}")
+    private Duration feedLag;
+
+    // MANDATORY: an event must commit or roll back together with the balance update it describes
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCredit(Long accountId, BigDecimal amount) {
+        record(accountId, OutboxEvent.EventType.CREDITED, amount);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDebit(Long accountId, BigDecimal amount) {
+        record(accountId, OutboxEvent.EventType.DEBITED, amount);
+    }
+
+    /**
+     * Events after the given id that are older than the feed lag. A cursor older than the retained events
+     * gets a {@link EventFeedExpiredException}: events it has not read may already have been purged.
+     */
+    @Transactional(readOnly = true)
+    public List<OutboxEvent> getEventsAfter(Long afterEventId, int limit) {
+        int size = Math.max(1, Math.min(limit, maxFeedSize));
+        long after = afterEventId != null ? afterEventId : 0L;
+        if (after > 0) {
+            Long oldest = outboxEventRepository.findOldestEventId();
+            if (oldest != null && after < oldest - 1) {
+                throw new EventFeedExpiredException("Events after " + after + " are no longer retained; "
+                        + "the oldest retained event is " + oldest);
+            }
+        }
+        return outboxEventRepository.findFeedPage(after, LocalDateTime.now().minus(feedLag), PageRequest.of(0, size));
+    }
+
+    private void record(Long accountId, OutboxEvent.EventType eventType, BigDecimal amount) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .accountId(accountId)
+                .eventType(eventType)
+                .amount(amount)
+                .build());
+    }
+}
@@ -0,0 +1,13 @@
+package com.bank.account.service;
+
+import com.bank.account.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination for balance change events drained from the outbox. Delivery is at-least-once,
+ * so implementations should tolerate seeing the same eventId twice.
+ */
+public interface OutboxSink {
+    void publish(List<OutboxEvent> events) throws Exception;
+}
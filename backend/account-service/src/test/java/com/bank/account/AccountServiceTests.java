@@ -1,15 +1,39 @@
 package com.bank.account;
 
+import com.bank.account.dto.AccountPage;
+import com.bank.account.dto.BalanceLeg;
+import com.bank.account.dto.BalanceLegResult;
+import com.bank.account.dto.TransferResponse;
 import com.bank.account.entity.Account;
+import com.bank.account.entity.OutboxEvent;
+import com.bank.account.exception.EventFeedExpiredException;
+import com.bank.account.exception.InsufficientBalanceException;
+import com.bank.account.repository.AccountNumberBlockRepository;
 import com.bank.account.repository.AccountRepository;
+import com.bank.account.repository.OutboxEventRepository;
+import com.bank.account.service.AccountBatchService;
+import com.bank.account.service.AccountExportService;
+import com.bank.account.service.AccountNumberAllocator;
 import com.bank.account.service.AccountService;
+import com.bank.account.service.OutboxRelay;
+import com.bank.account.service.OutboxService;
+import com.bank.account.service.OutboxSink;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,6 +46,33 @@ class AccountServiceTests {
     @Autowired
     private AccountService accountService;
 
+    @Autowired
+    private AccountBatchService accountBatchService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxSink outboxSink;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AccountExportService accountExportService;
+
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Autowired
+    private AccountNumberBlockRepository accountNumberBlockRepository;
+
     private Account testAccount;
 
     @BeforeEach
@@ -79,6 +130,44 @@ class AccountServiceTests {
         assertEquals(BigDecimal.valueOf(800).compareTo(updated.getBalance()), 0);
     }
 
+    @Test
+    void shouldWriteOutboxEventsWithBalanceChanges() {
+        Account saved = accountRepository.save(testAccount);
+
+        accountService.deposit(saved.getAccountId(), BigDecimal.valueOf(50));
+        accountService.withdraw(saved.getAccountId(), BigDecimal.valueOf(30));
+        assertThrows(RuntimeException.class, () -> accountService.withdraw(saved.getAccountId(), BigDecimal.valueOf(5000)));
+        outboxRelay.relayBatch();
+
+        List<OutboxEvent> events = outboxService.getEventsAfter(0L, 500).stream()
+                .filter(e -> e.getAccountId().equals(saved.getAccountId()))
+                .toList();
+        assertEquals(2, events.size());
+        assertEquals(OutboxEvent.EventType.CREDITED, events.get(0).getEventType());
+        assertEquals(OutboxEvent.EventType.DEBITED, events.get(1).getEventType());
+        assertTrue(events.stream().allMatch(e -> e.getPublishedAt() != null));
+    }
+
+    @Test
+    void shouldAnswerGoneForFeedCursorBehindPurgedEvents() {
+        Account saved = accountRepository.save(testAccount);
+        accountService.deposit(saved.getAccountId(), BigDecimal.valueOf(10));
+        accountService.deposit(saved.getAccountId(), BigDecimal.valueOf(20));
+        accountService.deposit(saved.getAccountId(), BigDecimal.valueOf(30));
+        outboxRelay.relay();
+        List<OutboxEvent> events = outboxService.getEventsAfter(0L, 500).stream()
+                .filter(e -> e.getAccountId().equals(saved.getAccountId()))
+                .toList();
+        Long newest = events.get(2).getEventId();
+
+        new OutboxRelay(outboxEventRepository, outboxSink, transactionManager, 500, Duration.ZERO).purgePublished();
+
+        // The newest event is always kept, so a cursor that is up to date keeps working
+        assertEquals(List.of(newest), outboxService.getEventsAfter(newest - 1, 10).stream()
+                .map(OutboxEvent::getEventId).toList());
+        assertThrows(EventFeedExpiredException.class, () -> outboxService.getEventsAfter(events.get(0).getEventId(), 10));
+    }
+
     @Test
     void shouldRejectWithdrawInsufficientBalance() {
         testAccount.setBalance(BigDecimal.valueOf(100));
@@ -89,6 +178,71 @@ class AccountServiceTests {
         });
     }
 
+    @Test
+    void shouldRejectDepositToFrozenAccount() {
+        testAccount.setStatus(Account.AccountStatus.FROZEN);
+        Account saved = accountRepository.save(testAccount);
+
+        assertThrows(IllegalStateException.class, () -> {
+            accountService.deposit(saved.getAccountId(), BigDecimal.valueOf(100));
+        });
+        assertEquals(BigDecimal.valueOf(1000).compareTo(accountService.getAccountById(saved.getAccountId()).getBalance()), 0);
+    }
+
+    @Test
+    void shouldTransferMoneyBetweenAccounts() {
+        Account from = accountRepository.save(testAccount);
+        Account to = accountRepository.save(Account.builder()
+                .customerId(999L)
+                .accountNumber("TEST2" + System.currentTimeMillis())
+                .accountType(Account.AccountType.CHECKING)
+                .balance(BigDecimal.valueOf(50))
+                .build());
+
+        TransferResponse result = accountService.transfer(from.getAccountId(), to.getAccountId(), BigDecimal.valueOf(300));
+
+        assertEquals(BigDecimal.valueOf(700).compareTo(result.getFromAccount().getBalance()), 0);
+        assertEquals(BigDecimal.valueOf(350).compareTo(result.getToAccount().getBalance()), 0);
+    }
+
+    @Test
+    void shouldRejectTransferInsufficientBalance() {
+        Account from = accountRepository.save(testAccount);
+        Account to = accountRepository.save(Account.builder()
+                .customerId(999L)
+                .accountNumber("TEST2" + System.currentTimeMillis())
+                .accountType(Account.AccountType.CHECKING)
+                .balance(BigDecimal.ZERO)
+                .build());
+
+        assertThrows(InsufficientBalanceException.class, () -> {
+            accountService.transfer(from.getAccountId(), to.getAccountId(), BigDecimal.valueOf(5000));
+        });
+        assertEquals(BigDecimal.ZERO.compareTo(accountService.getAccountById(to.getAccountId()).getBalance()), 0);
+    }
+
+    @Test
+    void shouldApplyBatchLegsIndependently() {
+        Account from = accountRepository.save(testAccount);
+        Account to = accountRepository.save(Account.builder()
+                .customerId(999L)
+                .accountNumber("TEST2" + System.currentTimeMillis())
+                .accountType(Account.AccountType.CHECKING)
+                .balance(BigDecimal.ZERO)
+                .build());
+
+        List<BalanceLegResult> results = accountBatchService.apply(List.of(
+                new BalanceLeg(from.getAccountId(), to.getAccountId(), BigDecimal.valueOf(400)),
+                new BalanceLeg(to.getAccountId(), from.getAccountId(), BigDecimal.valueOf(900)),
+                new BalanceLeg(null, to.getAccountId(), BigDecimal.valueOf(100))));
+
+        assertTrue(results.get(0).isApplied());
+        assertFalse(results.get(1).isApplied());
+        assertTrue(results.get(2).isApplied());
+        assertEquals(BigDecimal.valueOf(600).compareTo(accountService.getAccountById(from.getAccountId()).getBalance()), 0);
+        assertEquals(BigDecimal.valueOf(500).compareTo(accountService.getAccountById(to.getAccountId()).getBalance()), 0);
+    }
+
     @Test
     void shouldFreezeAccount() {
         Account saved = accountRepository.save(testAccount);
@@ -117,6 +271,16 @@ class AccountServiceTests {
         });
     }
 
+    @Test
+    void shouldSyncCustomerStatusToAccounts() {
+        testAccount.setCustomerId(998L);
+        Account saved = accountRepository.save(testAccount);
+
+        accountService.updateCustomerStatus(998L, "SUSPENDED");
+
+        assertEquals(Account.CustomerStatus.SUSPENDED, accountService.getAccountById(saved.getAccountId()).getCustomerStatus());
+    }
+
     @Test
     void shouldGetAccountsByCustomerId() {
         accountRepository.save(testAccount);
@@ -125,4 +289,117 @@ class AccountServiceTests {
         
         assertFalse(accounts.isEmpty());
     }
+
+    @Test
+    void shouldAllocateUniqueCheckDigitedAccountNumbersConcurrently() {
+        long blocksBefore = accountNumberBlockRepository.count();
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 2_500).parallel().forEach(i -> numbers.add(accountNumberAllocator.next()));
+
+        assertEquals(2_500, numbers.size());
+        assertTrue(numbers.stream().allMatch(AccountNumberAllocator::isValid));
+        // 1000 numbers per block: the database is touched only when a block runs out
+        assertTrue(accountNumberBlockRepository.count() - blocksBefore <= 4);
+
+        String number = numbers.iterator().next();
+        char last = number.charAt(number.length() - 1);
+        String mistyped = number.substring(0, number.length() - 1) + (char) ('0' + (last - '0' + 1) % 10);
+        assertFalse(AccountNumberAllocator.isValid(mistyped));
+    }
+
+    @Test
+    void shouldNotOverlapBlocksOfReplicasWithDifferentBlockSizes() {
+        AccountNumberAllocator small = new AccountNumberAllocator(accountNumberBlockRepository, transactionManager, 7);
+        AccountNumberAllocator large = new AccountNumberAllocator(accountNumberBlockRepository, transactionManager, 1000);
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 400).parallel().forEach(i -> numbers.add(i % 2 == 0 ? small.next() : large.next()));
+
+        assertEquals(400, numbers.size());
+    }
+
+    @Test
+    void shouldPageAccountsByKeysetWithStatusFilter() throws Exception {
+        List<Long> frozenIds = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Account account = accountRepository.save(Account.builder()
+                    .customerId(777L)
+                    .accountNumber(accountNumberAllocator.next())
+                    .accountType(Account.AccountType.CHECKING)
+                    .balance(BigDecimal.TEN)
+                    .status(i % 2 == 0 ? Account.AccountStatus.FROZEN : Account.AccountStatus.ACTIVE)
+                    .build());
+            if (account.getStatus() == Account.AccountStatus.FROZEN) {
+                frozenIds.add(account.getAccountId());
+            }
+        }
+
+        for (String direction : List.of("asc", "desc")) {
+            for (String sort : List.of("accountId", "createdAt")) {
+                List<Account> seen = new ArrayList<>();
+                String cursor = null;
+                do {
+                    AccountPage page = accountService.getAccountPage(
+                            Account.AccountStatus.FROZEN, sort, direction, cursor, 2);
+                    assertTrue(page.getAccounts().size() <= 2);
+                    seen.addAll(page.getAccounts());
+                    cursor = page.getNextCursor();
+                    assertEquals(cursor != null, page.isHasMore());
+                } while (cursor != null);
+
+                assertTrue(seen.stream().allMatch(a -> a.getStatus() == Account.AccountStatus.FROZEN));
+                List<Long> ids = seen.stream().map(Account::getAccountId).toList();
+                assertEquals(ids.size(), Set.copyOf(ids).size());
+                assertTrue(ids.containsAll(frozenIds));
+                if (sort.equals("accountId")) {
+                    List<Long> sorted = new ArrayList<>(ids);
+                    sorted.sort(direction.equals("asc") ? Comparator.naturalOrder() : Comparator.reverseOrder());
+                    assertEquals(sorted, ids);
+                }
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                () -> accountService.getAccountPage(null, "balance", "asc", null, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> accountService.getAccountPage(null, "accountId", "asc", "not-a-cursor", 10));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        accountExportService.writeAccounts(Account.AccountStatus.FROZEN, out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertTrue(lines.length >= frozenIds.size());
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"status\":\"FROZEN\""));
+    }
+
+    @Test
+    void shouldLookupAccountsByIdsAndNumbersInOneCall() {
+        Account first = accountRepository.save(Account.builder()
+                .customerId(888L)
+                .accountNumber(accountNumberAllocator.next())
+                .accountType(Account.AccountType.SAVINGS)
+                .balance(BigDecimal.ONE)
+                .build());
+        Account second = accountRepository.save(Account.builder()
+                .customerId(888L)
+                .accountNumber(accountNumberAllocator.next())
+                .accountType(Account.AccountType.CHECKING)
+                .balance(BigDecimal.ONE)
+                .build());
+
+        List<Account> byIds = accountService.lookupAccounts(Set.of(first.getAccountId(), -1L), null);
+        assertEquals(List.of(first.getAccountId()), byIds.stream().map(Account::getAccountId).toList());
+
+        List<Account> byNumbers = accountService.lookupAccounts(null, Set.of(second.getAccountNumber(), "ACC-MISSING"));
+        assertEquals(List.of(second.getAccountId()), byNumbers.stream().map(Account::getAccountId).toList());
+
+        // The same account named by id and number comes back once
+        List<Account> mixed = accountService.lookupAccounts(
+                Set.of(first.getAccountId()), Set.of(first.getAccountNumber(), second.getAccountNumber()));
+        assertEquals(Set.of(first.getAccountId(), second.getAccountId()),
+                Set.copyOf(mixed.stream().map(Account::getAccountId).toList()));
+        assertEquals(2, mixed.size());
+
+        assertThrows(IllegalArgumentException.class, () -> accountService.lookupAccounts(Set.of(), Set.of()));
+    }
 }
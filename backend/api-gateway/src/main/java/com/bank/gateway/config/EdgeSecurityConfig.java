@@ -0,0 +1,54 @@
+package com.bank.gateway.config;
+
+import com.bank.security.IdentitySigner;
+import com.bank.security.JwksKeyLocator;
+import com.bank.security.JwtVerifier;
+import com.bank.security.RevocationList;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.time.Duration;
+
+@Configuration
+public class EdgeSecurityConfig {
+
+    @Bean
+    public JwksKeyLocator jwksKeyLocator(
+            @Value("${jwt.jwks-uri:http://localhost:8080/auth/.well-known/jwks.json}") URI jwksUri,
+            @Value("${jwt.jwks-refresh-interval:5m}") Duration refreshInterval,
+            @Value("${jwt.jwks-min-refresh-gap:30s}") Duration minRefreshGap) {
+        return new JwksKeyLocator(jwksUri, refreshInterval, minRefreshGap);
+    }
+
+    // Revoked tokens are rejected here, before their identity is signed into forwarded headers
+    @Bean
+    public RevocationList revocationList(
+            @Value("${jwt.revocation.uri:http://localhost:8080/auth/revocations}") URI revocationsUri,
+            @Value("${jwt.revocation.refresh-interval:10s}") Duration refreshInterval,
+            @Value("${jwt.revocation.full-resync-interval:1h}") Duration fullResyncInterval,
+            @Value("${jwt.revocation.overlap:30s}") Duration overlap,
+            @Value("${jwt.revocation.expected-entries:100000}") long expectedEntries,
+            @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+            @Value("${jwt.revocation.check-cache-ttl:30s}") Duration exactCheckTtl,
+            IdentitySigner identitySigner,
+            @Value("${spring.application.name:api-gateway}") String serviceName,
+            MeterRegistry meterRegistry) {
+        return new RevocationList(revocationsUri, refreshInterval, fullResyncInterval, overlap, expectedEntries,
+                falsePositiveRate, exactCheckTtl, identitySigner, serviceName, meterRegistry);
+    }
+
+    @Bean
+    public JwtVerifier jwtVerifier(JwksKeyLocator jwksKeyLocator, RevocationList revocationList,
+                                   @Value("${jwt.cache.max-size:50000}") long cacheSize) {
+        return new JwtVerifier(jwksKeyLocator, cacheSize, revocationList);
+    }
+
+    @Bean
+    public IdentitySigner identitySigner(@Value("${bank.security.identity.secret:}") String secret,
+                                         @Value("${bank.security.identity.max-ttl:60s}") Duration maxTtl) {
+        return new IdentitySigner(secret, maxTtl);
+    }
+}
@@ -0,0 +1,78 @@
+package com.bank.gateway.filter;
+
+import com.bank.security.IdentitySigner;
+import com.bank.security.JwtVerifier;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Verifies the bearer token once at the edge and forwards the identity as signed headers, so
+ * downstream services authenticate with one small HMAC instead of parsing the JWT again.
+ */
+@Component
+public class EdgeAuthenticationFilter implements GlobalFilter, Ordered {
+    private static final String BEARER = "Bearer ";
+
+    private final JwtVerifier jwtVerifier;
+    private final IdentitySigner identitySigner;
+    private final long ttlSeconds;
+
+    public EdgeAuthenticationFilter(JwtVerifier jwtVerifier, IdentitySigner identitySigner,
+                                    @Value("${bank.security.identity.forward-ttl:30s}") Duration ttl) {
+        this.jwtVerifier = jwtVerifier;
+        this.identitySigner = identitySigner;
+        this.ttlSeconds = ttl.toSeconds();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith(BEARER)) {
+            return forward(exchange, chain, null);
+        }
+        // Verification may block on a JWKS refresh or a revocation check against auth-service, so it must not
+        // run on the event loop
+        return Mono.fromCallable(() -> Optional.ofNullable(jwtVerifier.parseClaims(authHeader.substring(BEARER.length()))))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(claims -> forward(exchange, chain, claims.orElse(null)));
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, Claims claims) {
+        var request = exchange.getRequest().mutate().headers(headers -> {
+            // Never pass through identity headers a client made up
+            headers.remove(IdentitySigner.USER_HEADER);
+            headers.remove(IdentitySigner.ROLE_HEADER);
+            headers.remove(IdentitySigner.EXPIRES_HEADER);
+            headers.remove(IdentitySigner.NONCE_HEADER);
+            headers.remove(IdentitySigner.SIGNATURE_HEADER);
+            String username = claims != null ? claims.getSubject() : null;
+            String role = claims != null ? claims.get("role", String.class) : null;
+            if (username != null && role != null) {
+                // Only long enough to reach the service, never past the token's own expiry
+                long expires = Math.min(claims.getExpiration().getTime() / 1000,
+                        System.currentTimeMillis() / 1000 + ttlSeconds);
+                identitySigner.signedHeaders(username, role, expires,
+                        exchange.getRequest().getMethod().name(), exchange.getRequest().getURI().getRawPath())
+                        .forEach(headers::set);
+            }
+        }).build();
+        // Invalid or missing tokens are forwarded as anonymous; each service still decides what needs auth
+        return chain.filter(exchange.mutate().request(request).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
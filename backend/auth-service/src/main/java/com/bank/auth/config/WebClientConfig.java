@@ -1,21 +1,43 @@
 package com.bank.auth.config;
 
+import com.bank.security.IdentitySigner;
+import com.bank.security.ServiceIdentity;
 import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.DefaultClientRequestObservationConvention;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Duration;
+
 @Configuration
 public class WebClientConfig {
 
+    // auth-service issues tokens rather than consuming them, so the shared security auto-configuration is
+    // excluded; only the outbound SERVICE identity is needed (registration compensation deletes customers)
+    // and the inbound identity check for the SERVICE-only revocation endpoints
+    @Bean
+    public IdentitySigner identitySigner(@Value("${bank.security.identity.secret:}") String secret,
+                                         @Value("${bank.security.identity.max-ttl:60s}") Duration maxTtl) {
+        return new IdentitySigner(secret, maxTtl);
+    }
+
+    @Bean
+    public ServiceIdentity serviceIdentity(IdentitySigner identitySigner,
+                                           @Value("${spring.application.name:auth-service}") String serviceName,
+                                           @Value("${bank.security.identity.service-ttl:30s}") Duration ttl) {
+        return new ServiceIdentity(identitySigner, serviceName, ttl);
+    }
+
     @Bean
     @LoadBalanced
-    public WebClient.Builder webClientBuilder(ObservationRegistry observationRegistry) {
+    public WebClient.Builder webClientBuilder(ObservationRegistry observationRegistry, ServiceIdentity serviceIdentity) {
         return WebClient.builder()
                 .observationRegistry(observationRegistry)
-                .observationConvention(new DefaultClientRequestObservationConvention());
+                .observationConvention(new DefaultClientRequestObservationConvention())
+                .filter(serviceIdentity);
     }
 
     @Bean
@@ -3,17 +3,36 @@ package com.bank.auth.controller;
 import com.bank.auth.dto.AuthRequest;
 import com.bank.auth.dto.AuthResponse;
 import com.bank.auth.dto.FullRegistrationRequest;
+import com.bank.auth.dto.RegistrationResponse;
+import com.bank.auth.dto.RegistrationStatus;
+import com.bank.auth.dto.RevocationFeed;
 import com.bank.auth.entity.User;
+import com.bank.auth.exception.HashingCapacityExceededException;
+import com.bank.auth.repository.RegistrationSagaRepository;
 import com.bank.auth.repository.UserRepository;
 import com.bank.auth.security.JwtUtil;
+import com.bank.auth.security.LoginThrottle;
+import com.bank.auth.security.PinGrantIssuer;
 import com.bank.auth.service.RegistrationService;
+import com.bank.auth.service.SigningKeyService;
+import com.bank.auth.service.TokenRevocationService;
+import com.bank.auth.service.UserCredentialCache;
+import com.bank.auth.service.UserCredentialCache.UserCredentials;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 @RestController
 @RequestMapping("/auth")
 @RequiredArgsConstructor
@@ -22,7 +41,13 @@ public class AuthController {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final PinGrantIssuer pinGrantIssuer;
+    private final LoginThrottle loginThrottle;
+    private final UserCredentialCache userCredentialCache;
     private final RegistrationService registrationService;
+    private final RegistrationSagaRepository registrationSagaRepository;
+    private final SigningKeyService signingKeyService;
+    private final TokenRevocationService tokenRevocationService;
 
     @PostMapping("/register")
     public ResponseEntity<?> register(@Valid @RequestBody AuthRequest request) {
@@ -37,6 +62,7 @@ public class AuthController {
                 .build();
 
         userRepository.save(user);
+        userCredentialCache.invalidate(user.getUsername());
         String token = jwtUtil.generateToken(user.getUsername(), user.getRole());
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(new AuthResponse(token, user.getUsername(), user.getRole()));
@@ -45,24 +71,47 @@ public class AuthController {
     @PostMapping("/register-full")
     public ResponseEntity<?> registerFull(@Valid @RequestBody FullRegistrationRequest request) {
         try {
-            AuthResponse response = registrationService.registerFull(request);
+            RegistrationResponse response = registrationService.registerFull(request);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (HashingCapacityExceededException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    @GetMapping("/registrations/{username}")
+    public ResponseEntity<?> registrationStatus(@PathVariable String username,
+                                                @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        // Signature only: a failed registration revokes the token, and its owner should still see why
+        Claims claims = authHeader != null && authHeader.startsWith("Bearer ")
+                ? jwtUtil.parseClaims(authHeader.substring(7))
+                : null;
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
+        }
+        if (!username.equals(claims.getSubject()) && !"ADMIN".equals(claims.get("role", String.class))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
+        }
+        return registrationSagaRepository.findTopByUsernameOrderByIdDesc(username)
+                .<ResponseEntity<?>>map(saga -> ResponseEntity.ok(RegistrationStatus.from(saga)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("No registration found"));
+    }
+
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody AuthRequest request) {
-        User user = userRepository.findByUsername(request.getUsername())
-                .orElse(null);
+    public ResponseEntity<?> login(@Valid @RequestBody AuthRequest request, HttpServletRequest httpRequest) {
+        // Rejected before any DB lookup or BCrypt work
+        loginThrottle.checkAllowed(request.getUsername(), loginThrottle.clientIp(httpRequest));
+
+        UserCredentials user = userCredentialCache.find(request.getUsername()).orElse(null);
 
-        if (user == null || !passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (user == null || !passwordEncoder.matches(request.getPassword(), user.passwordHash())) {
+            loginThrottle.recordFailure(request.getUsername());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials");
         }
 
-        String token = jwtUtil.generateToken(user.getUsername(), user.getRole());
-        return ResponseEntity.ok(new AuthResponse(token, user.getUsername(), user.getRole()));
+        String token = jwtUtil.generateToken(user.username(), user.role());
+        return ResponseEntity.ok(new AuthResponse(token, user.username(), user.role()));
     }
 
     @GetMapping("/validate")
@@ -72,25 +121,73 @@ public class AuthController {
         }
         
         String token = authHeader.substring(7);
-        if (jwtUtil.validateToken(token)) {
+        Claims claims = jwtUtil.parseClaims(token);
+        if (claims != null && !tokenRevocationService.isRevoked(claims)) {
             return ResponseEntity.ok().body("Token is valid");
         }
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        Claims claims = bearerClaims(authHeader);
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
+        }
+        tokenRevocationService.revokeToken(claims);
+        return ResponseEntity.ok().body("Logged out");
+    }
+
+    @PostMapping("/users/{username}/revoke-tokens")
+    public ResponseEntity<?> revokeUserTokens(@PathVariable String username,
+                                              @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        Claims claims = bearerClaims(authHeader);
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
+        }
+        if (!"ADMIN".equals(claims.get("role", String.class))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Admin role required");
+        }
+        tokenRevocationService.revokeUser(username);
+        return ResponseEntity.ok().body("All tokens of " + username + " revoked");
+    }
+
+    @GetMapping("/revocations")
+    public RevocationFeed revocations(@RequestParam(defaultValue = "0") long since,
+                                      @RequestParam(defaultValue = "0") long afterId,
+                                      @RequestParam(defaultValue = "1000") int limit) {
+        return tokenRevocationService.getRevocationsAfter(since, afterId, Math.min(Math.max(limit, 1), 5000));
+    }
+
+    @GetMapping("/revocations/check")
+    public Map<String, Boolean> checkRevocation(@RequestParam(required = false) String jti,
+                                                @RequestParam(required = false) String sub,
+                                                @RequestParam(required = false) Long iat) {
+        Date issuedAt = iat != null ? new Date(iat * 1000) : null;
+        return Map.of("revoked", tokenRevocationService.isRevoked(jti, sub, issuedAt));
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<String> jwks() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES))
+                .body(signingKeyService.jwksJson());
+    }
+
     @PostMapping("/validate-pin")
     public ResponseEntity<?> validatePin(@RequestParam String username, @RequestParam String pin) {
-        User user = userRepository.findByUsername(username).orElse(null);
+        UserCredentials user = userCredentialCache.find(username).orElse(null);
         
         if (user == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
         }
         
-        if (user.getTransactionPin() == null || !passwordEncoder.matches(pin, user.getTransactionPin())) {
+        if (user.pinHash() == null || !passwordEncoder.matches(pin, user.pinHash())) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid PIN");
         }
         
-        return ResponseEntity.ok().body("PIN valid");
+        return ResponseEntity.ok().body(pinGrantIssuer.issue(username));
     }
 
     @PostMapping("/setup-admin")
@@ -107,6 +204,17 @@ public class AuthController {
                 .build();
         
         userRepository.save(admin);
+        userCredentialCache.invalidate("admin");
+        // Tokens issued under the previous admin credentials must stop working
+        tokenRevocationService.revokeUser("admin");
         return ResponseEntity.ok("Admin user created with username: admin, password: admin123");
     }
+
+    private Claims bearerClaims(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        Claims claims = jwtUtil.parseClaims(authHeader.substring(7));
+        return claims != null && !tokenRevocationService.isRevoked(claims) ? claims : null;
+    }
 }
@@ -0,0 +1,16 @@
+package com.bank.auth.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class PinGrantResponse {
+    private String message;
+    // Send as pinGrant on the next withdrawals/transfers instead of the PIN
+    private String grant;
+    private Instant expiresAt;
+    private int maxUses;
+}
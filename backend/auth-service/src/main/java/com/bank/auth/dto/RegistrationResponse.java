@@ -0,0 +1,14 @@
+package com.bank.auth.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RegistrationResponse {
+    private String token;
+    private String username;
+    private String role;
+    // Customer profile and account are provisioned in the background; poll GET /auth/registrations/{username}
+    private String registrationState;
+}
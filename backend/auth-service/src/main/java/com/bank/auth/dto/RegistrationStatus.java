@@ -0,0 +1,24 @@
+package com.bank.auth.dto;
+
+import com.bank.auth.entity.RegistrationSaga;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class RegistrationStatus {
+    private String username;
+    private String state;
+    private Long customerId;
+    private Long accountId;
+    private int attempts;
+    private String lastError;
+    private LocalDateTime updatedAt;
+
+    public static RegistrationStatus from(RegistrationSaga saga) {
+        return new RegistrationStatus(saga.getUsername(), saga.getState().name(), saga.getCustomerId(),
+                saga.getAccountId(), saga.getAttempts(), saga.getLastError(), saga.getUpdatedAt());
+    }
+}
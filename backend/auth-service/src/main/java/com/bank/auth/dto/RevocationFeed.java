@@ -0,0 +1,18 @@
+package com.bank.auth.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class RevocationFeed {
+    private List<Entry> entries;
+    // Keyset position of the last entry: pass back as "since" and "afterId" for the next page
+    private long lastRevokedAt;
+    private long lastId;
+
+    public record Entry(long id, String key) {
+    }
+}
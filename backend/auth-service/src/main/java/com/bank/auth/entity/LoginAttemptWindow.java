@@ -0,0 +1,27 @@
+package com.bank.auth.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "login_attempt_windows", indexes = @Index(name = "idx_login_attempt_windows_start", columnList = "windowStart"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoginAttemptWindow {
+    // throttleKey + "@" + windowStart
+    @Id
+    @Column(length = 320)
+    private String id;
+
+    @Column(nullable = false, length = 300)
+    private String throttleKey;
+
+    // Epoch millis; every replica must use the same window length
+    @Column(nullable = false)
+    private long windowStart;
+
+    @Column(nullable = false)
+    private long attempts;
+}
@@ -0,0 +1,69 @@
+package com.bank.auth.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "registration_sagas", indexes = {
+        @Index(name = "idx_registration_sagas_username", columnList = "username"),
+        @Index(name = "idx_registration_sagas_due", columnList = "state, nextAttemptAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RegistrationSaga {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private SagaState state;
+
+    // Profile and account details captured at registration; replayed on every retry of a step and cleared
+    // once the saga reaches a final state
+    private String name;
+    private String email;
+    private String phone;
+    private String address;
+    private String accountType;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal initialDeposit;
+
+    private Long customerId;
+
+    private Long accountId;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 500)
+    private String lastError;
+
+    private LocalDateTime nextAttemptAt;
+
+    // Set while one worker runs the saga so pollers on other instances skip it
+    private LocalDateTime leaseUntil;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    // NEEDS_ATTENTION: compensation gave up; the customer profile may still be active and needs a manual fix
+    public enum SagaState {
+        CUSTOMER_PENDING, ACCOUNT_PENDING, COMPLETED, COMPENSATING, FAILED, NEEDS_ATTENTION
+    }
+
+    public boolean isFinished() {
+        return state == SagaState.COMPLETED || state == SagaState.FAILED || state == SagaState.NEEDS_ATTENTION;
+    }
+}
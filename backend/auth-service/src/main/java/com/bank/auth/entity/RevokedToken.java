@@ -0,0 +1,33 @@
+package com.bank.auth.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_key", columnList = "revocationKey"),
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revokedAt, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevokedToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // "jti:<token id>" for a single token, "sub:<username>" for every token issued to a user before revokedAt
+    @Column(nullable = false)
+    private String revocationKey;
+
+    // Replication cursor for services, stored at millisecond precision so it round-trips through the feed
+    @Column(nullable = false)
+    private LocalDateTime revokedAt;
+
+    // Once every affected token has expired the entry can be purged
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,32 @@
+package com.bank.auth.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "signing_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SigningKey {
+    @Id
+    @Column(length = 64)
+    private String kid;
+
+    @Column(nullable = false, length = 20)
+    private String algorithm;
+
+    // X.509 DER, base64 encoded
+    @Column(nullable = false, length = 1024)
+    private String publicKey;
+
+    // "v1:" + base64(IV || AES-GCM of the PKCS#8 DER), see SigningKeyService
+    @Column(nullable = false, length = 2048)
+    private String privateKey;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,27 @@
+package com.bank.auth.repository;
+
+import com.bank.auth.entity.LoginAttemptWindow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface LoginAttemptWindowRepository extends JpaRepository<LoginAttemptWindow, String> {
+    List<LoginAttemptWindow> findByWindowStartGreaterThanEqualAndAttemptsGreaterThanEqual(long windowStart, long attempts);
+
+    @Modifying
+    @Query("UPDATE LoginAttemptWindow w SET w.attempts = w.attempts + :delta WHERE w.id = :id")
+    int increment(@Param("id") String id, @Param("delta") long delta);
+
+    // Plain insert, not save(): a merge could overwrite a row another replica created concurrently
+    @Modifying
+    @Query("INSERT INTO LoginAttemptWindow (id, throttleKey, windowStart, attempts) VALUES (:id, :throttleKey, :windowStart, :attempts)")
+    int insert(@Param("id") String id, @Param("throttleKey") String throttleKey,
+               @Param("windowStart") long windowStart, @Param("attempts") long attempts);
+
+    @Modifying
+    @Query("DELETE FROM LoginAttemptWindow w WHERE w.windowStart < :before")
+    int deleteOlderThan(@Param("before") long before);
+}
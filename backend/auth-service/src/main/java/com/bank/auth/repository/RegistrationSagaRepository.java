@@ -0,0 +1,31 @@
+package com.bank.auth.repository;
+
+import com.bank.auth.entity.RegistrationSaga;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface RegistrationSagaRepository extends JpaRepository<RegistrationSaga, Long> {
+    Optional<RegistrationSaga> findTopByUsernameOrderByIdDesc(String username);
+
+    @Query("SELECT s.id FROM RegistrationSaga s WHERE s.state IN :states AND s.nextAttemptAt <= :now " +
+           "AND (s.leaseUntil IS NULL OR s.leaseUntil < :now) ORDER BY s.nextAttemptAt")
+    List<Long> findDueIds(@Param("states") Collection<RegistrationSaga.SagaState> states,
+                          @Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE RegistrationSaga s SET s.leaseUntil = :until WHERE s.id = :id " +
+           "AND (s.leaseUntil IS NULL OR s.leaseUntil < :now)")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE RegistrationSaga s SET s.leaseUntil = NULL WHERE s.id = :id")
+    void release(@Param("id") Long id);
+}
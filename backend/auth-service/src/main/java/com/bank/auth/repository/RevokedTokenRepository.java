@@ -0,0 +1,26 @@
+package com.bank.auth.repository;
+
+import com.bank.auth.entity.RevokedToken;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    // Keyset on (revokedAt, id): ids are assigned before commit, so they are not a safe replication cursor
+    @Query("SELECT r FROM RevokedToken r WHERE r.expiresAt > :now " +
+           "AND (r.revokedAt > :since OR (r.revokedAt = :since AND r.id > :afterId)) " +
+           "ORDER BY r.revokedAt, r.id")
+    List<RevokedToken> findPageAfter(@Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+                                     @Param("now") LocalDateTime now, Pageable pageable);
+
+    List<RevokedToken> findByRevocationKeyInAndExpiresAtAfter(List<String> revocationKeys, LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,18 @@
+package com.bank.auth.repository;
+
+import com.bank.auth.entity.SigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SigningKeyRepository extends JpaRepository<SigningKey, String> {
+    List<SigningKey> findByCreatedAtAfterOrderByCreatedAtDesc(LocalDateTime createdAfter);
+
+    @Modifying
+    @Query("DELETE FROM SigningKey k WHERE k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,65 +1,138 @@
 package com.bank.auth.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.bank.auth.service.SigningKeyService;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private final SigningKeyService signingKeyService;
+    private final JwtParser jwtParser;
+    // Verified claims keyed by SHA-256 of the token; each entry lives until the token itself expires
+    private final Cache<String, Claims> verifiedTokens;
+    private final long expiration;
 
-    @Value("${jwt.expiration}")
-    private long expiration;
+    public JwtUtil(SigningKeyService signingKeyService,
+                   @Value("${jwt.expiration}") long expiration,
+                   @Value("${jwt.cache.max-size:10000}") long cacheSize) {
+        this.signingKeyService = signingKeyService;
+        // Only tokens whose kid resolves to one of our published public keys verify
+        this.jwtParser = Jwts.parser().keyLocator(new LocatorAdapter<Key>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                Key key = signingKeyService.publicKey(header.getKeyId());
+                if (key == null) {
+                    throw new UnsupportedJwtException("Unknown signing key id: " + header.getKeyId());
+                }
+                return key;
+            }
+        }).build();
+        this.expiration = expiration;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        return remainingNanos(claims);
+                    }
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return remainingNanos(claims);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public String generateToken(String username, String role) {
+        SigningKeyService.CurrentKey key = signingKeyService.current();
         return Jwts.builder()
+                .header().keyId(key.kid()).and()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .claim("role", role)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(key.privateKey(), Jwts.SIG.ES256)
                 .compact();
     }
 
+    /**
+     * Returns the verified claims of an unexpired token, or null if the token is invalid or expired.
+     */
+    public Claims parseClaims(String token) {
+        String cacheKey = hash(token);
+        Claims claims = verifiedTokens.getIfPresent(cacheKey);
+        if (claims == null) {
+            try {
+                Jws<Claims> jws = jwtParser.parseSignedClaims(token);
+                // Only login tokens; PIN grants are signed with the same key but carry their own typ
+                if (jws.getHeader().getType() != null && !"JWT".equals(jws.getHeader().getType())) {
+                    return null;
+                }
+                claims = jws.getPayload();
+            } catch (JwtException | IllegalArgumentException e) {
+                return null;
+            }
+            if (claims.getExpiration() == null) {
+                return null;
+            }
+            verifiedTokens.put(cacheKey, claims);
+        }
+        return claims.getExpiration().after(new Date()) ? claims : null;
+    }
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
     public String extractRole(String token) {
-        return extractClaim(token, claims -> claims.get("role", String.class));
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.get("role", String.class) : null;
     }
 
     public boolean validateToken(String token) {
-        try {
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
-        }
+        return parseClaims(token) != null;
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractClaim(token, Claims::getExpiration).before(new Date());
+    private static long remainingNanos(Claims claims) {
+        long millis = claims.getExpiration().getTime() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> resolver) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return resolver.apply(claims);
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
@@ -0,0 +1,224 @@
+package com.bank.auth.security;
+
+import com.bank.auth.exception.LoginThrottledException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sliding-window login limits per client IP (every attempt) and per username (failed attempts). Checks
+ * run before any DB lookup or BCrypt work. Counters live in a bounded Caffeine map of lock-free
+ * {@link SlidingWindowCounter}s. With cluster sync enabled, local increments are also queued for
+ * {@link com.bank.auth.service.LoginThrottleSync}, which shares them through the database so the limits
+ * hold across replicas to within one sync interval.
+ */
+@Component
+public class LoginThrottle {
+    private static final String USER_PREFIX = "user:";
+    private static final String IP_PREFIX = "ip:";
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxFailuresPerUsername;
+    private final int maxAttemptsPerIp;
+    private final List<AddressRange> trustedProxies;
+    private final boolean clusterSync;
+    private final Cache<String, SlidingWindowCounter> counters;
+    // Increments not yet pushed to the shared table, by counter key and window index
+    private final Map<WindowKey, LongAdder> pending = new ConcurrentHashMap<>();
+    private final Counter throttledByUsername;
+    private final Counter throttledByIp;
+
+    public LoginThrottle(@Value("${auth.login-throttle.enabled:true}") boolean enabled,
+                         @Value("${auth.login-throttle.window:5m}") Duration window,
+                         @Value("${auth.login-throttle.max-failures-per-username:10}") int maxFailuresPerUsername,
+                         @Value("${auth.login-throttle.max-attempts-per-ip:100}") int maxAttemptsPerIp,
+                         @Value("${auth.login-throttle.max-tracked-keys:100000}") long maxTrackedKeys,
+                         @Value("${auth.login-throttle.trusted-proxies:127.0.0.1,::1}") List<String> trustedProxies,
+                         @Value("${auth.login-throttle.cluster-sync:false}") boolean clusterSync,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.windowMillis = window.toMillis();
+        this.maxFailuresPerUsername = maxFailuresPerUsername;
+        this.maxAttemptsPerIp = maxAttemptsPerIp;
+        this.trustedProxies = trustedProxies.stream().filter(p -> !p.isBlank()).map(AddressRange::parse).toList();
+        this.clusterSync = clusterSync;
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterAccess(window.multipliedBy(2))
+                .build();
+        this.throttledByUsername = throttled(meterRegistry, "username");
+        this.throttledByIp = throttled(meterRegistry, "ip");
+    }
+
+    /**
+     * Counts the attempt against the client IP and rejects it if either limit is exceeded.
+     */
+    public void checkAllowed(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long index = now / windowMillis;
+        double previousWeight = previousWeight(now);
+
+        if (increment(IP_PREFIX + clientIp, index, previousWeight) > maxAttemptsPerIp) {
+            throttledByIp.increment();
+            throw new LoginThrottledException("Too many login attempts from this address", retryAfterSeconds(now));
+        }
+        SlidingWindowCounter failures = counters.getIfPresent(USER_PREFIX + username);
+        if (failures != null && failures.estimate(index, previousWeight) >= maxFailuresPerUsername) {
+            throttledByUsername.increment();
+            throw new LoginThrottledException("Too many failed login attempts for this user", retryAfterSeconds(now));
+        }
+    }
+
+    public void recordFailure(String username) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        increment(USER_PREFIX + username, now / windowMillis, previousWeight(now));
+    }
+
+    /**
+     * Client address as seen by the gateway: the last X-Forwarded-For hop is the one the gateway appended,
+     * earlier hops are client-supplied. The header is only honoured on connections from a trusted proxy
+     * (an address or CIDR range); anyone else could set it to spread attempts over made-up addresses.
+     * Without it every login through the gateway would share the gateway's own address.
+     */
+    public String clientIp(HttpServletRequest request) {
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor != null && !forwardedFor.isBlank() && isTrustedProxy(request.getRemoteAddr())) {
+            return forwardedFor.substring(forwardedFor.lastIndexOf(',') + 1).trim();
+        }
+        return request.getRemoteAddr();
+    }
+
+    public boolean isClusterSync() {
+        return clusterSync;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    // Smallest count worth pulling from the cluster: below this no key is anywhere near a limit
+    public long getMinClusterCount() {
+        return Math.max(1, Math.min(maxFailuresPerUsername, maxAttemptsPerIp) / 2);
+    }
+
+    /**
+     * Takes the increments made since the last call, dropping windows too old to matter.
+     */
+    public List<PendingCount> drainPending() {
+        long currentIndex = System.currentTimeMillis() / windowMillis;
+        List<PendingCount> drained = new ArrayList<>();
+        pending.forEach((key, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta > 0) {
+                drained.add(new PendingCount(key.counterKey(), key.windowIndex(), delta));
+            }
+            if (key.windowIndex() < currentIndex - 1) {
+                pending.remove(key);
+            }
+        });
+        return drained;
+    }
+
+    public void mergeClusterCount(String counterKey, long windowIndex, long total) {
+        long currentIndex = System.currentTimeMillis() / windowMillis;
+        counters.get(counterKey, key -> new SlidingWindowCounter()).mergeClusterCount(currentIndex, windowIndex, total);
+    }
+
+    private boolean isTrustedProxy(String remoteAddr) {
+        byte[] address = AddressRange.literal(remoteAddr);
+        return address != null && trustedProxies.stream().anyMatch(range -> range.contains(address));
+    }
+
+    private double increment(String key, long index, double previousWeight) {
+        double estimate = counters.get(key, k -> new SlidingWindowCounter()).add(index, previousWeight);
+        if (clusterSync) {
+            pending.computeIfAbsent(new WindowKey(key, index), k -> new LongAdder()).increment();
+        }
+        return estimate;
+    }
+
+    private double previousWeight(long now) {
+        return 1.0 - (double) (now % windowMillis) / windowMillis;
+    }
+
+    private long retryAfterSeconds(long now) {
+        return Math.max(1, (windowMillis - now % windowMillis + 999) / 1000);
+    }
+
+    private static Counter throttled(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("auth.login.throttled")
+                .description("Login attempts rejected before credential checks")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    private record AddressRange(byte[] network, int prefixLength) {
+        static AddressRange parse(String value) {
+            String trimmed = value.trim();
+            int slash = trimmed.indexOf('/');
+            byte[] network = literal(slash < 0 ? trimmed : trimmed.substring(0, slash));
+            if (network == null) {
+                throw new IllegalArgumentException("auth.login-throttle.trusted-proxies: not an IP address or CIDR range: " + value);
+            }
+            int prefixLength = slash < 0 ? network.length * 8 : Integer.parseInt(trimmed.substring(slash + 1));
+            if (prefixLength < 0 || prefixLength > network.length * 8) {
+                throw new IllegalArgumentException("auth.login-throttle.trusted-proxies: invalid prefix length in " + value);
+            }
+            return new AddressRange(network, prefixLength);
+        }
+
+        boolean contains(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            int mask = (0xFF << (8 - remainingBits)) & 0xFF;
+            return remainingBits == 0 || (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+
+        // Only IP literals are accepted, so parsing never triggers a DNS lookup
+        static byte[] literal(String value) {
+            boolean ipv4 = value != null && !value.isEmpty() && value.chars().allMatch(c -> c == '.' || Character.isDigit(c));
+            if (!ipv4 && (value == null || value.indexOf(':') < 0)) {
+                return null;
+            }
+            try {
+                return InetAddress.getByName(value).getAddress();
+            } catch (UnknownHostException e) {
+                return null;
+            }
+        }
+    }
+
+    private record WindowKey(String counterKey, long windowIndex) {
+    }
+
+    public record PendingCount(String counterKey, long windowIndex, long delta) {
+    }
+}
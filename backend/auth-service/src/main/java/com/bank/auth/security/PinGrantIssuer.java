@@ -0,0 +1,52 @@
+package com.bank.auth.security;
+
+import com.bank.auth.dto.PinGrantResponse;
+import com.bank.auth.service.SigningKeyService;
+import io.jsonwebtoken.Jwts;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Issues short-lived PIN grants after a successful PIN check, so transaction-service can authorise the
+ * next few money movements locally instead of asking for another BCrypt comparison. Grants are signed with
+ * the current ES256 key and verified against the JWKS, so no shared secret is needed.
+ */
+@Component
+public class PinGrantIssuer {
+    public static final String SCOPE = "pin:money-movement";
+    // Login-token verifiers reject this typ, so a grant never passes as a bearer token
+    public static final String TYPE = "pin-grant+jwt";
+
+    private final SigningKeyService signingKeyService;
+    private final Duration ttl;
+    private final int maxUses;
+
+    public PinGrantIssuer(SigningKeyService signingKeyService,
+                          @Value("${pin-grant.ttl:5m}") Duration ttl,
+                          @Value("${pin-grant.max-uses:10}") int maxUses) {
+        this.signingKeyService = signingKeyService;
+        this.ttl = ttl;
+        this.maxUses = maxUses;
+    }
+
+    public PinGrantResponse issue(String username) {
+        SigningKeyService.CurrentKey key = signingKeyService.current();
+        Instant expiresAt = Instant.now().plus(ttl);
+        String grant = Jwts.builder()
+                .header().keyId(key.kid()).type(TYPE).and()
+                .id(UUID.randomUUID().toString())
+                .subject(username)
+                .claim("scope", SCOPE)
+                .claim("uses", maxUses)
+                .issuedAt(new Date())
+                .expiration(Date.from(expiresAt))
+                .signWith(key.privateKey(), Jwts.SIG.ES256)
+                .compact();
+        return new PinGrantResponse("PIN valid", grant, expiresAt, maxUses);
+    }
+}
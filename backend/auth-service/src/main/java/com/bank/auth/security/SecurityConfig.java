@@ -1,5 +1,8 @@
 package com.bank.auth.security;
 
+import com.bank.security.IdentitySigner;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -8,6 +11,9 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.time.Duration;
 
 
 @Configuration
@@ -15,12 +21,15 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, IdentitySigner identitySigner) throws Exception {
         http
             .cors(cors -> cors.disable())  // CORS handled by API Gateway
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .addFilterBefore(new ServiceIdentityFilter(identitySigner), UsernamePasswordAuthenticationFilter.class)
             .authorizeHttpRequests(auth -> auth
+                // The revocation feed and exact check are for services replicating the list, not for clients
+                .requestMatchers("/auth/revocations", "/auth/revocations/**").hasRole("SERVICE")
                 .requestMatchers("/auth/**").permitAll()
                 .anyRequest().authenticated()
             );
@@ -29,7 +38,12 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${auth.hashing.pool-size:0}") int poolSize,
+                                           @Value("${auth.hashing.queue-capacity:50}") int queueCapacity,
+                                           @Value("${auth.hashing.max-wait:2s}") Duration maxWait) {
+        // BCrypt is CPU bound, so by default use one worker per core
+        int workers = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), workers, queueCapacity, maxWait, meterRegistry);
     }
 }
@@ -0,0 +1,42 @@
+package com.bank.auth.security;
+
+import com.bank.security.IdentitySigner;
+import com.bank.security.JwtAuthentication;
+import com.bank.security.RoleAuthorities;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Authenticates requests that carry signed identity headers (services and gateway-forwarded users), so
+ * internal endpoints such as the revocation feed can require the SERVICE role. Bearer tokens are still
+ * handled by the controllers that need them.
+ */
+public class ServiceIdentityFilter extends OncePerRequestFilter {
+    private final IdentitySigner identitySigner;
+    private final RoleAuthorities roleAuthorities = new RoleAuthorities(List.of("USER", "ADMIN", "SERVICE"));
+
+    public ServiceIdentityFilter(IdentitySigner identitySigner) {
+        this.identitySigner = identitySigner;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String username = request.getHeader(IdentitySigner.USER_HEADER);
+        String role = request.getHeader(IdentitySigner.ROLE_HEADER);
+        if (identitySigner.verify(username, role, request.getHeader(IdentitySigner.EXPIRES_HEADER),
+                request.getMethod(), request.getRequestURI(), request.getHeader(IdentitySigner.NONCE_HEADER),
+                request.getHeader(IdentitySigner.SIGNATURE_HEADER))) {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new JwtAuthentication(username, roleAuthorities.forRole(role)));
+        }
+        filterChain.doFilter(request, response);
+    }
+}
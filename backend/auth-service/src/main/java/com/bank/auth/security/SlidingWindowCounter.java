@@ -0,0 +1,54 @@
+package com.bank.auth.security;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free sliding-window counter. Keeps the counts of the current and previous fixed windows and
+ * estimates the sliding count by weighting the previous window by how much of it the sliding window
+ * still overlaps. Updates are a CAS on one immutable snapshot, so concurrent attempts on the same key
+ * never block each other.
+ */
+final class SlidingWindowCounter {
+    private final AtomicReference<Window> window = new AtomicReference<>(new Window(0, 0, 0));
+
+    double add(long index, double previousWeight) {
+        Window updated = window.updateAndGet(w -> {
+            Window rolled = w.rollTo(index);
+            return new Window(rolled.index(), rolled.current() + 1, rolled.previous());
+        });
+        return updated.estimate(previousWeight);
+    }
+
+    double estimate(long index, double previousWeight) {
+        return window.get().rollTo(index).estimate(previousWeight);
+    }
+
+    /**
+     * Raises a window's count to the cluster-wide total; counts never go down, so a stale total is harmless.
+     */
+    void mergeClusterCount(long currentIndex, long countIndex, long total) {
+        window.updateAndGet(w -> {
+            Window rolled = w.rollTo(currentIndex);
+            if (countIndex == rolled.index()) {
+                return new Window(rolled.index(), Math.max(rolled.current(), total), rolled.previous());
+            }
+            if (countIndex == rolled.index() - 1) {
+                return new Window(rolled.index(), rolled.current(), Math.max(rolled.previous(), total));
+            }
+            return rolled;
+        });
+    }
+
+    private record Window(long index, long current, long previous) {
+        Window rollTo(long target) {
+            if (target <= index) {
+                return this;
+            }
+            return new Window(target, 0, target == index + 1 ? current : 0);
+        }
+
+        double estimate(double previousWeight) {
+            return current + previous * previousWeight;
+        }
+    }
+}
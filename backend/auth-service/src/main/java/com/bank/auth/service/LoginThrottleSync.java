@@ -0,0 +1,65 @@
+package com.bank.auth.service;
+
+import com.bank.auth.entity.LoginAttemptWindow;
+import com.bank.auth.repository.LoginAttemptWindowRepository;
+import com.bank.auth.security.LoginThrottle;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Cluster mode for {@link LoginThrottle}: pushes each replica's new attempts into login_attempt_windows
+ * and pulls back the cluster-wide totals of keys that are getting close to a limit.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "auth.login-throttle.cluster-sync", havingValue = "true")
+public class LoginThrottleSync {
+    private final LoginThrottle loginThrottle;
+    private final LoginAttemptWindowRepository windowRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public LoginThrottleSync(LoginThrottle loginThrottle, LoginAttemptWindowRepository windowRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.loginThrottle = loginThrottle;
+        this.windowRepository = windowRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.login-throttle.sync-interval:PT2S}")
+    public void sync() {
+        long windowMillis = loginThrottle.getWindowMillis();
+        try {
+            for (LoginThrottle.PendingCount count : loginThrottle.drainPending()) {
+                push(count.counterKey(), count.windowIndex() * windowMillis, count.delta());
+            }
+            long previousWindowStart = (System.currentTimeMillis() / windowMillis - 1) * windowMillis;
+            for (LoginAttemptWindow window : windowRepository.findByWindowStartGreaterThanEqualAndAttemptsGreaterThanEqual(
+                    previousWindowStart, loginThrottle.getMinClusterCount())) {
+                loginThrottle.mergeClusterCount(window.getThrottleKey(), window.getWindowStart() / windowMillis, window.getAttempts());
+            }
+            transactionTemplate.executeWithoutResult(status -> windowRepository.deleteOlderThan(previousWindowStart));
+        } catch (RuntimeException e) {
+            // Local limits keep working; the next sync catches up
+            log.warn("Login throttle sync failed: {}", e.getMessage());
+        }
+    }
+
+    private void push(String counterKey, long windowStart, long delta) {
+        String id = counterKey + "@" + windowStart;
+        Integer updated = transactionTemplate.execute(status -> windowRepository.increment(id, delta));
+        if (updated != null && updated > 0) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> windowRepository.insert(id, counterKey, windowStart, delta));
+        } catch (DataIntegrityViolationException e) {
+            // Another replica created the row first
+            transactionTemplate.executeWithoutResult(status -> windowRepository.increment(id, delta));
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.bank.auth.service;
+
+import com.bank.auth.entity.RegistrationSaga;
+import com.bank.auth.entity.RegistrationSaga.SagaState;
+import com.bank.auth.repository.RegistrationSagaRepository;
+import com.bank.auth.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives registration sagas: create the customer profile, then the default account. Each step is
+ * idempotent (it first looks for what a lost earlier attempt may have created), transient failures are
+ * retried with exponential backoff, and a saga that cannot finish is compensated by deactivating the
+ * customer profile and removing the auth user. Compensation is retried too, but only so often: a saga
+ * it cannot finish ends in NEEDS_ATTENTION with an error log and metric. Sagas are kicked off right after
+ * registration and picked up by a poller after restarts, rejections or backoff; a lease keeps two
+ * instances off the same saga. Profile details are dropped from the saga once it is finished.
+ */
+@Service
+@Slf4j
+public class RegistrationSagaRunner implements DisposableBean {
+    private static final List<SagaState> ACTIVE_STATES =
+            List.of(SagaState.CUSTOMER_PENDING, SagaState.ACCOUNT_PENDING, SagaState.COMPENSATING);
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT = new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> JSON_ARRAY = new ParameterizedTypeReference<>() {};
+
+    private final RegistrationSagaRepository sagaRepository;
+    private final UserRepository userRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserCredentialCache userCredentialCache;
+    private final WebClient customerServiceWebClient;
+    private final WebClient accountServiceWebClient;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final int maxAttempts;
+    private final int maxCompensationAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration stepTimeout;
+    private final Duration lease;
+    private final Counter completed;
+    private final Counter failed;
+    private final Counter retried;
+    private final Counter needsAttention;
+    private final Timer provisioningTime;
+
+    public RegistrationSagaRunner(RegistrationSagaRepository sagaRepository,
+                                  UserRepository userRepository,
+                                  TokenRevocationService tokenRevocationService,
+                                  UserCredentialCache userCredentialCache,
+                                  WebClient customerServiceWebClient,
+                                  WebClient accountServiceWebClient,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${registration.saga.workers:4}") int workers,
+                                  @Value("${registration.saga.queue-capacity:500}") int queueCapacity,
+                                  @Value("${registration.saga.max-attempts:8}") int maxAttempts,
+                                  @Value("${registration.saga.max-compensation-attempts:20}") int maxCompensationAttempts,
+                                  @Value("${registration.saga.initial-backoff:1s}") Duration initialBackoff,
+                                  @Value("${registration.saga.max-backoff:5m}") Duration maxBackoff,
+                                  @Value("${registration.saga.step-timeout:5s}") Duration stepTimeout,
+                                  @Value("${registration.saga.lease:1m}") Duration lease) {
+        this.sagaRepository = sagaRepository;
+        this.userRepository = userRepository;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userCredentialCache = userCredentialCache;
+        this.customerServiceWebClient = customerServiceWebClient;
+        this.accountServiceWebClient = accountServiceWebClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.maxCompensationAttempts = maxCompensationAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.stepTimeout = stepTimeout;
+        this.lease = lease;
+        AtomicInteger threadCount = new AtomicInteger();
+        // A full queue drops the kick-off; the poller still finds the saga because it is persisted
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "registration-saga-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.completed = outcome(meterRegistry, "completed");
+        this.failed = outcome(meterRegistry, "failed");
+        this.retried = outcome(meterRegistry, "retried");
+        this.needsAttention = outcome(meterRegistry, "needs_attention");
+        this.provisioningTime = Timer.builder("auth.registration.provisioning")
+                .description("Time from registration until the customer and account exist")
+                .register(meterRegistry);
+    }
+
+    public void submit(Long sagaId) {
+        try {
+            executor.execute(() -> run(sagaId));
+        } catch (RejectedExecutionException e) {
+            log.debug("Saga worker queue full, saga {} left for the poller", sagaId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${registration.saga.poll-interval:PT5S}")
+    public void pollDueSagas() {
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        for (Long sagaId : sagaRepository.findDueIds(ACTIVE_STATES, LocalDateTime.now(), PageRequest.of(0, Math.min(capacity, 100)))) {
+            submit(sagaId);
+        }
+    }
+
+    void run(Long sagaId) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status -> sagaRepository.claim(sagaId, now, now.plus(lease)));
+        if (claimed == null || claimed == 0) {
+            return;
+        }
+        try {
+            sagaRepository.findById(sagaId).ifPresent(this::advance);
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> sagaRepository.release(sagaId));
+        }
+    }
+
+    private void advance(RegistrationSaga saga) {
+        while (!saga.isFinished()) {
+            try {
+                switch (saga.getState()) {
+                    case CUSTOMER_PENDING -> {
+                        saga.setCustomerId(findOrCreateCustomer(saga));
+                        transition(saga, SagaState.ACCOUNT_PENDING);
+                    }
+                    case ACCOUNT_PENDING -> {
+                        saga.setAccountId(findOrCreateAccount(saga));
+                        transition(saga, SagaState.COMPLETED);
+                        completed.increment();
+                        provisioningTime.record(Duration.between(saga.getCreatedAt(), LocalDateTime.now()));
+                    }
+                    case COMPENSATING -> {
+                        compensate(saga);
+                        transition(saga, SagaState.FAILED);
+                        failed.increment();
+                    }
+                    default -> {
+                        return;
+                    }
+                }
+            } catch (Exception e) {
+                if (!onFailure(saga, e)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records a failed step. Returns true when the saga should continue right away (switched to
+     * compensation), false when it has been scheduled for a later retry or given up.
+     */
+    private boolean onFailure(RegistrationSaga saga, Exception e) {
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        saga.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+        saga.setAttempts(saga.getAttempts() + 1);
+        boolean compensating = saga.getState() == SagaState.COMPENSATING;
+        boolean retry = isTransient(e) && saga.getAttempts() < (compensating ? maxCompensationAttempts : maxAttempts);
+        if (!retry && compensating) {
+            log.error("Registration saga {} for {} could not be compensated after {} attempts and needs manual attention: {}",
+                    saga.getId(), saga.getUsername(), saga.getAttempts(), saga.getLastError());
+            transition(saga, SagaState.NEEDS_ATTENTION);
+            needsAttention.increment();
+            return false;
+        }
+        if (retry) {
+            log.warn("Registration saga {} step {} failed (attempt {}): {}",
+                    saga.getId(), saga.getState(), saga.getAttempts(), saga.getLastError());
+            saga.setNextAttemptAt(LocalDateTime.now().plus(backoff(saga.getAttempts())));
+            save(saga);
+            retried.increment();
+            return false;
+        }
+        log.warn("Registration saga {} for {} is being compensated: {}", saga.getId(), saga.getUsername(), saga.getLastError());
+        transition(saga, SagaState.COMPENSATING);
+        return true;
+    }
+
+    private Long findOrCreateCustomer(RegistrationSaga saga) {
+        // A previous attempt may have created the profile before its response was lost
+        Map<String, Object> existing = customerServiceWebClient.get()
+                .uri("/customers/user/{username}", saga.getUsername())
+                .retrieve()
+                .bodyToMono(JSON_OBJECT)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .block(stepTimeout);
+        if (existing != null && "ACTIVE".equals(existing.get("status"))) {
+            return ((Number) existing.get("customerId")).longValue();
+        }
+
+        Map<String, Object> customerRequest = new HashMap<>();
+        customerRequest.put("username", saga.getUsername());
+        customerRequest.put("name", saga.getName());
+        customerRequest.put("email", saga.getEmail());
+        customerRequest.put("phone", saga.getPhone());
+        customerRequest.put("address", saga.getAddress());
+
+        Map<String, Object> customer = customerServiceWebClient.post()
+                .uri("/customers")
+                .bodyValue(customerRequest)
+                .retrieve()
+                .bodyToMono(JSON_OBJECT)
+                .block(stepTimeout);
+        return ((Number) customer.get("customerId")).longValue();
+    }
+
+    private Long findOrCreateAccount(RegistrationSaga saga) {
+        // The customer is new, so any account it already has came from a lost earlier attempt
+        List<Map<String, Object>> existing = accountServiceWebClient.get()
+                .uri("/accounts/customer/{customerId}", saga.getCustomerId())
+                .retrieve()
+                .bodyToMono(JSON_ARRAY)
+                .block(stepTimeout);
+        if (existing != null && !existing.isEmpty()) {
+            return ((Number) existing.get(0).get("accountId")).longValue();
+        }
+
+        Map<String, Object> accountRequest = new HashMap<>();
+        accountRequest.put("customerId", saga.getCustomerId());
+        accountRequest.put("accountType", saga.getAccountType());
+        accountRequest.put("initialBalance", saga.getInitialDeposit());
+
+        Map<String, Object> account = accountServiceWebClient.post()
+                .uri("/accounts")
+                .bodyValue(accountRequest)
+                .retrieve()
+                .bodyToMono(JSON_OBJECT)
+                .block(stepTimeout);
+        return ((Number) account.get("accountId")).longValue();
+    }
+
+    private void compensate(RegistrationSaga saga) {
+        if (saga.getCustomerId() != null) {
+            // Soft delete; customer-service also propagates the INACTIVE status to any accounts
+            customerServiceWebClient.delete()
+                    .uri("/customers/{id}", saga.getCustomerId())
+                    .retrieve()
+                    .toBodilessEntity()
+                    .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                    .block(stepTimeout);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.deleteByUsername(saga.getUsername());
+            userCredentialCache.invalidate(saga.getUsername());
+        });
+        // The token handed out at registration must stop working too
+        tokenRevocationService.revokeUser(saga.getUsername());
+    }
+
+    private void transition(RegistrationSaga saga, SagaState state) {
+        saga.setState(state);
+        saga.setAttempts(0);
+        saga.setNextAttemptAt(LocalDateTime.now());
+        if (saga.isFinished()) {
+            // No later step replays the profile, so the saga need not keep personal data around
+            saga.setName(null);
+            saga.setEmail(null);
+            saga.setPhone(null);
+            saga.setAddress(null);
+        }
+        save(saga);
+    }
+
+    private void save(RegistrationSaga saga) {
+        saga.setUpdatedAt(LocalDateTime.now());
+        sagaRepository.save(saga);
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    // 4xx answers (validation, duplicate email) will not change on retry; everything else might
+    private static boolean isTransient(Exception e) {
+        if (e instanceof WebClientResponseException response) {
+            HttpStatusCode status = response.getStatusCode();
+            return !status.is4xxClientError()
+                    || status.value() == HttpStatus.REQUEST_TIMEOUT.value()
+                    || status.value() == HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return true;
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.registration.saga")
+                .description("Registration saga step outcomes")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -1,35 +1,54 @@
 package com.bank.auth.service;
 
-import com.bank.auth.dto.AuthResponse;
 import com.bank.auth.dto.FullRegistrationRequest;
+import com.bank.auth.dto.RegistrationResponse;
+import com.bank.auth.entity.RegistrationSaga;
 import com.bank.auth.entity.User;
+import com.bank.auth.repository.RegistrationSagaRepository;
 import com.bank.auth.repository.UserRepository;
 import com.bank.auth.security.JwtUtil;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatusCode;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.LocalDateTime;
 
+/**
+ * Registers the auth user and hands customer/account provisioning to a persisted saga. The only
+ * synchronous work is hashing and one short local transaction; the token is returned as soon as the
+ * user row and saga are durable.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class RegistrationService {
 
     private final UserRepository userRepository;
+    private final RegistrationSagaRepository sagaRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
-    private final WebClient customerServiceWebClient;
-    private final WebClient accountServiceWebClient;
+    private final RegistrationSagaRunner sagaRunner;
+    private final UserCredentialCache userCredentialCache;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
-    public AuthResponse registerFull(FullRegistrationRequest request) {
+    public RegistrationService(UserRepository userRepository,
+                               RegistrationSagaRepository sagaRepository,
+                               PasswordEncoder passwordEncoder,
+                               JwtUtil jwtUtil,
+                               RegistrationSagaRunner sagaRunner,
+                               UserCredentialCache userCredentialCache,
+                               PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.sagaRepository = sagaRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jwtUtil = jwtUtil;
+        this.sagaRunner = sagaRunner;
+        this.userCredentialCache = userCredentialCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public RegistrationResponse registerFull(FullRegistrationRequest request) {
         // 1. Check if username exists
         if (userRepository.existsByUsername(request.getUsername())) {
             throw new RuntimeException("Username already exists");
@@ -40,60 +59,40 @@ public class RegistrationService {
             throw new RuntimeException("Transaction PIN must be 4 digits");
         }
 
-        // 3. Create auth user
+        // 3. Hash outside the transaction so no connection is held during BCrypt
         User user = User.builder()
                 .username(request.getUsername())
                 .password(passwordEncoder.encode(request.getPassword()))
                 .transactionPin(passwordEncoder.encode(request.getTransactionPin()))
                 .role("USER")
                 .build();
-        userRepository.save(user);
-
-        try {
-            // 3. Create customer profile
-            Map<String, Object> customerRequest = new HashMap<>();
-            customerRequest.put("username", request.getUsername());
-            customerRequest.put("name", request.getName());
-            customerRequest.put("email", request.getEmail());
-            customerRequest.put("phone", request.getPhone());
-            customerRequest.put("address", request.getAddress());
-
-            Map<String, Object> customer = customerServiceWebClient.post()
-                    .uri("/customers")
-                    .bodyValue(customerRequest)
-                    .retrieve()
-                    .onStatus(HttpStatusCode::isError, response -> 
-                        response.bodyToMono(String.class)
-                            .flatMap(body -> Mono.error(new RuntimeException("Failed to create customer: " + body))))
-                    .bodyToMono(Map.class)
-                    .block();
 
-            Long customerId = ((Number) customer.get("customerId")).longValue();
-
-            // 4. Create default account
-            Map<String, Object> accountRequest = new HashMap<>();
-            accountRequest.put("customerId", customerId);
-            accountRequest.put("accountType", request.getAccountType());
-            accountRequest.put("initialBalance", request.getInitialDeposit());
-
-            accountServiceWebClient.post()
-                    .uri("/accounts")
-                    .bodyValue(accountRequest)
-                    .retrieve()
-                    .onStatus(HttpStatusCode::isError, response ->
-                        response.bodyToMono(String.class)
-                            .flatMap(body -> Mono.error(new RuntimeException("Failed to create account: " + body))))
-                    .bodyToMono(Map.class)
-                    .block();
-
-        } catch (Exception e) {
-            // Rollback user creation if customer/account creation fails
-            userRepository.delete(user);
-            throw new RuntimeException("Registration failed: " + e.getMessage());
-        }
+        // 4. Persist the user together with the saga that provisions customer profile and account
+        LocalDateTime now = LocalDateTime.now();
+        RegistrationSaga saga = transactionTemplate.execute(status -> {
+            if (userRepository.existsByUsername(request.getUsername())) {
+                throw new RuntimeException("Username already exists");
+            }
+            userRepository.save(user);
+            userCredentialCache.invalidate(user.getUsername());
+            return sagaRepository.save(RegistrationSaga.builder()
+                    .username(request.getUsername())
+                    .state(RegistrationSaga.SagaState.CUSTOMER_PENDING)
+                    .name(request.getName())
+                    .email(request.getEmail())
+                    .phone(request.getPhone())
+                    .address(request.getAddress())
+                    .accountType(request.getAccountType())
+                    .initialDeposit(request.getInitialDeposit())
+                    .nextAttemptAt(now)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        });
 
-        // 5. Generate token and return
+        // 5. Start provisioning in the background, generate token and return
+        sagaRunner.submit(saga.getId());
         String token = jwtUtil.generateToken(user.getUsername(), user.getRole());
-        return new AuthResponse(token, user.getUsername(), user.getRole());
+        return new RegistrationResponse(token, user.getUsername(), user.getRole(), saga.getState().name());
     }
 }
@@ -0,0 +1,233 @@
+package com.bank.auth.service;
+
+import com.bank.auth.entity.SigningKey;
+import com.bank.auth.repository.SigningKeyRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Owns the ES256 key pairs used to sign JWTs. Keys live in the signing_keys table so every auth-service
+ * instance signs with the same current key and publishes the same JWKS. The current key is rotated after
+ * jwt.signing.rotation-interval; older keys stay published until every token they signed has expired.
+ * Private keys are stored AES-GCM encrypted under jwt.signing.encryption-key, bound to their kid.
+ */
+@Service
+@Slf4j
+public class SigningKeyService {
+    private static final String ALGORITHM = "ES256";
+    private static final String ENCRYPTED_PREFIX = "v1:";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SigningKeyRepository signingKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration rotationInterval;
+    private final Duration publishFor;
+    private final Duration minReloadGap;
+    private final SecretKey encryptionKey;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private volatile KeyRing keyRing;
+    private volatile long lastReloadNanos;
+
+    public SigningKeyService(SigningKeyRepository signingKeyRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${jwt.signing.rotation-interval:30d}") Duration rotationInterval,
+                             @Value("${jwt.expiration}") long tokenLifetimeMillis,
+                             @Value("${jwt.signing.min-reload-gap:30s}") Duration minReloadGap,
+                             @Value("${jwt.signing.encryption-key}") String encryptionKey) {
+        this.signingKeyRepository = signingKeyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rotationInterval = rotationInterval;
+        // A retired key must verify tokens until the last one it signed expires
+        this.publishFor = rotationInterval.plusMillis(tokenLifetimeMillis).plusMinutes(5);
+        this.minReloadGap = minReloadGap;
+        byte[] keyBytes = Base64.getDecoder().decode(encryptionKey);
+        if (keyBytes.length != 32) {
+            throw new IllegalStateException("jwt.signing.encryption-key must be 32 bytes, base64 encoded");
+        }
+        this.encryptionKey = new SecretKeySpec(keyBytes, "AES");
+    }
+
+    @PostConstruct
+    void init() {
+        encryptLegacyKeys();
+        reload();
+        if (keyRing.current() == null) {
+            rotate();
+        }
+    }
+
+    public CurrentKey current() {
+        return keyRing.current();
+    }
+
+    public PublicKey publicKey(String kid) {
+        PublicKey key = keyRing.publicKeys().get(kid);
+        if (key == null && kid != null && reloadDue()) {
+            // Another instance may have rotated since our last reload. Unknown kids are otherwise answered
+            // from memory, so tokens with made-up kids cannot drive a query each
+            synchronized (this) {
+                if (reloadDue()) {
+                    reload();
+                }
+            }
+            key = keyRing.publicKeys().get(kid);
+        }
+        return key;
+    }
+
+    public String jwksJson() {
+        return keyRing.jwksJson();
+    }
+
+    public synchronized void rotate() {
+        KeyPair keyPair = Jwts.SIG.ES256.keyPair().build();
+        String kid = UUID.randomUUID().toString();
+        SigningKey key = SigningKey.builder()
+                .kid(kid)
+                .algorithm(ALGORITHM)
+                .publicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()))
+                .privateKey(encryptPrivate(kid, keyPair.getPrivate()))
+                .createdAt(LocalDateTime.now())
+                .build();
+        transactionTemplate.executeWithoutResult(status -> signingKeyRepository.save(key));
+        log.info("Rotated JWT signing key, new kid {}", key.getKid());
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.signing.reload-interval:PT1M}")
+    public void maintain() {
+        CurrentKey current = keyRing.current();
+        if (current == null || current.createdAt().isBefore(LocalDateTime.now().minus(rotationInterval))) {
+            rotate();
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                signingKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(publishFor)));
+        reload();
+    }
+
+    private boolean reloadDue() {
+        return System.nanoTime() - lastReloadNanos >= minReloadGap.toNanos();
+    }
+
+    private synchronized void reload() {
+        lastReloadNanos = System.nanoTime();
+        List<SigningKey> keys = signingKeyRepository
+                .findByCreatedAtAfterOrderByCreatedAtDesc(LocalDateTime.now().minus(publishFor));
+        Map<String, PublicKey> publicKeys = new LinkedHashMap<>();
+        for (SigningKey key : keys) {
+            publicKeys.put(key.getKid(), decodePublic(key.getPublicKey()));
+        }
+        CurrentKey current = keys.isEmpty() ? null : new CurrentKey(keys.get(0).getKid(),
+                decryptPrivate(keys.get(0).getKid(), keys.get(0).getPrivateKey()), keys.get(0).getCreatedAt());
+        String jwks = publicKeys.entrySet().stream()
+                .map(entry -> Jwks.json(Jwks.builder()
+                        .key((ECPublicKey) entry.getValue())
+                        .id(entry.getKey())
+                        .algorithm(ALGORITHM)
+                        .publicKeyUse("sig")
+                        .build()))
+                .collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+        keyRing = new KeyRing(current, Map.copyOf(publicKeys), jwks);
+    }
+
+    // Rows written before private keys were encrypted are re-written encrypted on startup
+    private void encryptLegacyKeys() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (SigningKey key : signingKeyRepository.findAll()) {
+                if (!key.getPrivateKey().startsWith(ENCRYPTED_PREFIX)) {
+                    key.setPrivateKey(encryptPrivate(key.getKid(), decodePrivate(key.getPrivateKey())));
+                    signingKeyRepository.save(key);
+                    log.info("Encrypted stored private key of kid {}", key.getKid());
+                }
+            }
+        });
+    }
+
+    private String encryptPrivate(String kid, PrivateKey privateKey) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            secureRandom.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_BITS, iv));
+            // The kid is authenticated too, so a ciphertext cannot be moved to another row
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] sealed = cipher.doFinal(privateKey.getEncoded());
+            byte[] stored = new byte[IV_LENGTH + sealed.length];
+            System.arraycopy(iv, 0, stored, 0, IV_LENGTH);
+            System.arraycopy(sealed, 0, stored, IV_LENGTH, sealed.length);
+            return ENCRYPTED_PREFIX + Base64.getEncoder().encodeToString(stored);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt private signing key", e);
+        }
+    }
+
+    private PrivateKey decryptPrivate(String kid, String stored) {
+        if (!stored.startsWith(ENCRYPTED_PREFIX)) {
+            throw new IllegalStateException("Stored private signing key of kid " + kid + " is not encrypted");
+        }
+        try {
+            byte[] raw = Base64.getDecoder().decode(stored.substring(ENCRYPTED_PREFIX.length()));
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_BITS, raw, 0, IV_LENGTH));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] der = cipher.doFinal(raw, IV_LENGTH, raw.length - IV_LENGTH);
+            return KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(der));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Stored private signing key of kid " + kid
+                    + " cannot be decrypted; check jwt.signing.encryption-key", e);
+        }
+    }
+
+    private static PublicKey decodePublic(String encoded) {
+        try {
+            return KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(encoded)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Stored public signing key is invalid", e);
+        }
+    }
+
+    private static PrivateKey decodePrivate(String encoded) {
+        try {
+            return KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(encoded)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Stored private signing key is invalid", e);
+        }
+    }
+
+    public record CurrentKey(String kid, PrivateKey privateKey, LocalDateTime createdAt) {
+    }
+
+    private record KeyRing(CurrentKey current, Map<String, PublicKey> publicKeys, String jwksJson) {
+    }
+}
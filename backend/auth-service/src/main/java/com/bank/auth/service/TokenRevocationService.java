@@ -0,0 +1,135 @@
+package com.bank.auth.service;
+
+import com.bank.auth.dto.RevocationFeed;
+import com.bank.auth.entity.RevokedToken;
+import com.bank.auth.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Revocation list for access tokens. Entries are keyed by jti for a single token or by subject for every
+ * token a user held at the time (logout everywhere, admin lockout, credential resets). Services replicate
+ * the keys incrementally into a bloom filter and only call {@link #isRevoked} when the filter hits.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+    public static final String JTI_PREFIX = "jti:";
+    public static final String SUBJECT_PREFIX = "sub:";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long tokenLifetimeMillis;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  @Value("${jwt.expiration}") long tokenLifetimeMillis) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.tokenLifetimeMillis = tokenLifetimeMillis;
+    }
+
+    @Transactional
+    public void revokeToken(Claims claims) {
+        if (claims.getId() == null) {
+            // Tokens issued before jti was added can only be revoked through their user
+            revokeUser(claims.getSubject());
+            return;
+        }
+        revokedTokenRepository.save(RevokedToken.builder()
+                .revocationKey(JTI_PREFIX + claims.getId())
+                .revokedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS))
+                .expiresAt(toLocal(claims.getExpiration().toInstant()))
+                .build());
+    }
+
+    /**
+     * Revokes every token issued to the user up to now; tokens issued afterwards are unaffected.
+     */
+    @Transactional
+    public void revokeUser(String username) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        revokedTokenRepository.save(RevokedToken.builder()
+                .revocationKey(SUBJECT_PREFIX + username)
+                .revokedAt(now)
+                .expiresAt(now.plus(tokenLifetimeMillis, ChronoUnit.MILLIS))
+                .build());
+        log.info("Revoked all tokens issued to {}", username);
+    }
+
+    /**
+     * Revocations after the keyset position (since, afterId), oldest first. Consumers re-read a trailing window
+     * before their last position, since a revocation can commit after a later one was already served.
+     */
+    @Transactional(readOnly = true)
+    public RevocationFeed getRevocationsAfter(long sinceEpochMillis, long afterId, int limit) {
+        List<RevokedToken> page = revokedTokenRepository.findPageAfter(
+                toLocal(Instant.ofEpochMilli(sinceEpochMillis)), afterId, LocalDateTime.now(), PageRequest.of(0, limit));
+        List<RevocationFeed.Entry> entries = new ArrayList<>(page.size());
+        for (RevokedToken revoked : page) {
+            entries.add(new RevocationFeed.Entry(revoked.getId(), revoked.getRevocationKey()));
+        }
+        if (page.isEmpty()) {
+            return new RevocationFeed(entries, sinceEpochMillis, afterId);
+        }
+        RevokedToken last = page.get(page.size() - 1);
+        long lastRevokedAt = last.getRevokedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new RevocationFeed(entries, lastRevokedAt, last.getId());
+    }
+
+    /**
+     * Exact check behind the bloom filter. A subject entry revokes tokens issued in an earlier second than
+     * the revocation; iat only has second precision, so a token issued in the same second is kept.
+     */
+    @Transactional(readOnly = true)
+    public boolean isRevoked(String jti, String username, Date issuedAt) {
+        List<String> keys = new ArrayList<>(2);
+        if (jti != null) {
+            keys.add(JTI_PREFIX + jti);
+        }
+        if (username != null) {
+            keys.add(SUBJECT_PREFIX + username);
+        }
+        if (keys.isEmpty()) {
+            return false;
+        }
+        long issuedAtSecond = issuedAt != null ? issuedAt.toInstant().getEpochSecond() : Long.MIN_VALUE;
+        for (RevokedToken revoked : revokedTokenRepository.findByRevocationKeyInAndExpiresAtAfter(keys, LocalDateTime.now())) {
+            if (revoked.getRevocationKey().startsWith(JTI_PREFIX)) {
+                return true;
+            }
+            long revokedSecond = revoked.getRevokedAt().atZone(ZoneId.systemDefault()).toEpochSecond();
+            if (issuedAtSecond < revokedSecond) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isRevoked(Claims claims) {
+        return isRevoked(claims.getId(), claims.getSubject(), claims.getIssuedAt());
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT1H}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.info("Purged {} expired token revocations", purged);
+        }
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,68 @@
+package com.bank.auth.service;
+
+import com.bank.auth.entity.User;
+import com.bank.auth.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded TTL cache of the credential fields of a user, so login and validate-pin skip the database
+ * for active users. Writers call {@link #invalidate}; the TTL bounds how long another replica can serve a
+ * changed hash. Unknown usernames are not cached. Hit, miss and eviction counts are published as
+ * cache.* metrics with cache=userCredentials.
+ */
+@Service
+public class UserCredentialCache {
+    private final UserRepository userRepository;
+    private final Cache<String, UserCredentials> cache;
+
+    public UserCredentialCache(UserRepository userRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${auth.user-cache.ttl:5m}") Duration ttl,
+                               @Value("${auth.user-cache.max-size:50000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userCredentials");
+    }
+
+    public Optional<UserCredentials> find(String username) {
+        return Optional.ofNullable(cache.get(username, key -> userRepository.findByUsername(key)
+                .map(UserCredentials::from)
+                .orElse(null)));
+    }
+
+    /**
+     * Drops the cached entry now and, inside a transaction, again after commit so a concurrent read
+     * cannot re-cache the pre-commit row.
+     */
+    public void invalidate(String username) {
+        cache.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(username);
+                }
+            });
+        }
+    }
+
+    public record UserCredentials(String username, String passwordHash, String pinHash, String role) {
+        static UserCredentials from(User user) {
+            return new UserCredentials(user.getUsername(), user.getPassword(), user.getTransactionPin(), user.getRole());
+        }
+    }
+}
@@ -1,18 +1,47 @@
 package com.bank.auth;
 
 import com.bank.auth.dto.AuthRequest;
+import com.bank.auth.entity.RegistrationSaga;
+import com.bank.auth.entity.SigningKey;
 import com.bank.auth.entity.User;
+import com.bank.auth.exception.HashingCapacityExceededException;
+import com.bank.auth.exception.LoginThrottledException;
+import com.bank.auth.repository.LoginAttemptWindowRepository;
+import com.bank.auth.repository.RegistrationSagaRepository;
+import com.bank.auth.repository.SigningKeyRepository;
 import com.bank.auth.repository.UserRepository;
+import com.bank.auth.security.BoundedPasswordEncoder;
 import com.bank.auth.security.JwtUtil;
+import com.bank.auth.security.LoginThrottle;
+import com.bank.auth.service.LoginThrottleSync;
+import com.bank.auth.service.SigningKeyService;
+import com.bank.auth.service.UserCredentialCache;
+import com.bank.security.IdentitySigner;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.security.KeyPair;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -34,9 +63,33 @@ class AuthServiceTests {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private SigningKeyService signingKeyService;
+
+    @Autowired
+    private SigningKeyRepository signingKeyRepository;
+
+    @Autowired
+    private RegistrationSagaRepository registrationSagaRepository;
+
+    @Autowired
+    private LoginAttemptWindowRepository loginAttemptWindowRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserCredentialCache userCredentialCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private IdentitySigner identitySigner;
+
     @BeforeEach
     void setUp() {
         // Clean up test users
@@ -68,6 +121,290 @@ class AuthServiceTests {
         assertEquals("testuser", jwtUtil.extractUsername(token));
     }
 
+    @Test
+    void shouldReuseVerifiedClaimsAndRejectTamperedToken() {
+        String token = jwtUtil.generateToken("cacheduser", "ADMIN");
+
+        // Second lookup is served from the verified-token cache
+        assertSame(jwtUtil.parseClaims(token), jwtUtil.parseClaims(token));
+        assertEquals("ADMIN", jwtUtil.extractRole(token));
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertFalse(jwtUtil.validateToken(tampered));
+        assertNull(jwtUtil.parseClaims("not-a-jwt"));
+    }
+
+    @Test
+    void shouldPublishJwksAndVerifyTokensAcrossRotation() throws Exception {
+        String before = jwtUtil.generateToken("rotateuser", "USER");
+        String oldKid = keyId(before);
+
+        signingKeyService.rotate();
+        String after = jwtUtil.generateToken("rotateuser", "USER");
+
+        assertNotEquals(oldKid, keyId(after));
+        // Tokens signed with the previous key keep verifying until they expire
+        assertTrue(jwtUtil.validateToken(before));
+        assertTrue(jwtUtil.validateToken(after));
+
+        mockMvc.perform(get("/auth/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.keys[?(@.kid == '" + oldKid + "')].kty").value("EC"))
+                .andExpect(jsonPath("$.keys[?(@.kid == '" + keyId(after) + "')].crv").value("P-256"))
+                .andExpect(jsonPath("$.keys[*].d").doesNotExist());
+    }
+
+    @Test
+    void shouldRevokeTokenOnLogoutAndPublishItIncrementally() throws Exception {
+        // The feed is for services only
+        mockMvc.perform(get("/auth/revocations")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/auth/revocations/check").param("sub", "anyone")).andExpect(status().isForbidden());
+
+        JsonNode position = objectMapper.readTree(mockMvc.perform(get("/auth/revocations").with(serviceIdentity()))
+                .andReturn().getResponse().getContentAsString());
+        String token = jwtUtil.generateToken("logoutuser", "USER");
+        String other = jwtUtil.generateToken("logoutuser", "USER");
+
+        mockMvc.perform(post("/auth/logout").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/auth/validate").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/auth/validate").header("Authorization", "Bearer " + other))
+                .andExpect(status().isOk());
+        String jti = jwtUtil.parseClaims(token).getId();
+        mockMvc.perform(get("/auth/revocations").with(serviceIdentity())
+                        .param("since", position.get("lastRevokedAt").asText())
+                        .param("afterId", position.get("lastId").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries.length()").value(1))
+                .andExpect(jsonPath("$.entries[0].key").value("jti:" + jti));
+        mockMvc.perform(get("/auth/revocations/check").with(serviceIdentity()).param("jti", jti))
+                .andExpect(jsonPath("$.revoked").value(true));
+    }
+
+    @Test
+    void shouldRequireAdminToRevokeAllTokensOfUser() throws Exception {
+        String userToken = jwtUtil.generateToken("lockeduser", "USER");
+        long issuedBefore = jwtUtil.parseClaims(userToken).getIssuedAt().getTime() / 1000 - 1;
+
+        mockMvc.perform(post("/auth/users/lockeduser/revoke-tokens").header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/auth/users/lockeduser/revoke-tokens")
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken("lockadmin", "ADMIN")))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/auth/revocations/check").with(serviceIdentity())
+                        .param("sub", "lockeduser").param("iat", String.valueOf(issuedBefore)))
+                .andExpect(jsonPath("$.revoked").value(true));
+        mockMvc.perform(get("/auth/revocations/check").with(serviceIdentity()).param("sub", "lockeduser")
+                        .param("iat", String.valueOf(System.currentTimeMillis() / 1000 + 5)))
+                .andExpect(jsonPath("$.revoked").value(false));
+    }
+
+    @Test
+    void shouldReturnTokenBeforeProvisioningAndCompensateWhenItFails() throws Exception {
+        String body = """
+                {"username":"sagauser","password":"secret1","name":"Saga User","email":"saga@test.com",
+                 "phone":"555-0100","address":"1 Test Street","transactionPin":"1234"}
+                """;
+        String response = mockMvc.perform(post("/auth/register-full").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.username").value("sagauser"))
+                .andExpect(jsonPath("$.registrationState").value("CUSTOMER_PENDING"))
+                .andReturn().getResponse().getContentAsString();
+        String token = objectMapper.readTree(response).get("token").asText();
+        assertTrue(userRepository.existsByUsername("sagauser"));
+
+        // customer-service is unreachable in tests: the step is retried, then the saga compensates
+        String state = null;
+        for (int i = 0; i < 100 && !"FAILED".equals(state); i++) {
+            Thread.sleep(100);
+            String status = mockMvc.perform(get("/auth/registrations/sagauser").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            state = objectMapper.readTree(status).get("state").asText();
+        }
+        assertEquals("FAILED", state);
+        assertFalse(userRepository.existsByUsername("sagauser"));
+        RegistrationSaga finished = registrationSagaRepository.findTopByUsernameOrderByIdDesc("sagauser").orElseThrow();
+        assertNull(finished.getName());
+        assertNull(finished.getEmail());
+        assertNull(finished.getPhone());
+        assertNull(finished.getAddress());
+        mockMvc.perform(get("/auth/validate").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/auth/registrations/sagauser")
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken("someoneelse", "USER")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldStopRetryingCompensationThatKeepsFailing() throws Exception {
+        // The profile was created, but customer-service is unreachable for the soft delete
+        RegistrationSaga saga = registrationSagaRepository.save(RegistrationSaga.builder()
+                .username("stuck_saga")
+                .state(RegistrationSaga.SagaState.COMPENSATING)
+                .name("Stuck Saga")
+                .email("stuck@test.com")
+                .phone("555-0199")
+                .address("2 Test Street")
+                .customerId(999L)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        RegistrationSaga.SagaState state = null;
+        for (int i = 0; i < 100 && state != RegistrationSaga.SagaState.NEEDS_ATTENTION; i++) {
+            Thread.sleep(100);
+            state = registrationSagaRepository.findById(saga.getId()).orElseThrow().getState();
+        }
+        assertEquals(RegistrationSaga.SagaState.NEEDS_ATTENTION, state);
+        RegistrationSaga stuck = registrationSagaRepository.findById(saga.getId()).orElseThrow();
+        assertNotNull(stuck.getLastError());
+        assertNull(stuck.getEmail());
+        assertEquals(1.0, meterRegistry.get("auth.registration.saga").tag("outcome", "needs_attention").counter().count());
+    }
+
+    @Test
+    void shouldThrottleRepeatedFailedLoginsBeforeCheckingCredentials() throws Exception {
+        String body = "{\"username\":\"throttled_user\",\"password\":\"wrong\"}";
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content(body)
+                            .header("X-Forwarded-For", "10.0.0." + i))
+                    .andExpect(status().isUnauthorized());
+        }
+        mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content(body)
+                        .header("X-Forwarded-For", "10.0.1.1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    void shouldLimitAttemptsPerClientIpAndShareCountsAcrossReplicas() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LoginThrottle replicaA = new LoginThrottle(true, Duration.ofMinutes(5), 3, 4, 1000, List.of("10.0.0.1"), true, meterRegistry);
+        LoginThrottle replicaB = new LoginThrottle(true, Duration.ofMinutes(5), 3, 4, 1000, List.of("10.0.0.1"), true, meterRegistry);
+
+        // X-Forwarded-For counts only when the connection comes from a trusted proxy
+        MockHttpServletRequest viaProxy = new MockHttpServletRequest();
+        viaProxy.setRemoteAddr("10.0.0.1");
+        viaProxy.addHeader("X-Forwarded-For", "spoofed, 192.0.2.7");
+        assertEquals("192.0.2.7", replicaA.clientIp(viaProxy));
+        MockHttpServletRequest direct = new MockHttpServletRequest();
+        direct.setRemoteAddr("198.51.100.3");
+        direct.addHeader("X-Forwarded-For", "192.0.2.7");
+        assertEquals("198.51.100.3", replicaA.clientIp(direct));
+
+        for (int i = 0; i < 4; i++) {
+            replicaA.checkAllowed("user" + i, "192.0.2.7");
+        }
+        assertThrows(LoginThrottledException.class, () -> replicaA.checkAllowed("other", "192.0.2.7"));
+        replicaA.checkAllowed("other", "192.0.2.8");
+        assertEquals(1.0, meterRegistry.get("auth.login.throttled").tag("scope", "ip").counter().count());
+
+        // Failures seen by one replica reach the other through the shared table
+        replicaA.recordFailure("shared_user");
+        replicaA.recordFailure("shared_user");
+        replicaA.recordFailure("shared_user");
+        new LoginThrottleSync(replicaA, loginAttemptWindowRepository, transactionManager).sync();
+        replicaB.checkAllowed("shared_user", "192.0.2.9");
+        new LoginThrottleSync(replicaB, loginAttemptWindowRepository, transactionManager).sync();
+        assertThrows(LoginThrottledException.class, () -> replicaB.checkAllowed("shared_user", "192.0.2.10"));
+    }
+
+    @Test
+    void shouldCountClientsBehindTheSameProxySeparately() {
+        LoginThrottle throttle = new LoginThrottle(true, Duration.ofMinutes(5), 3, 2, 1000, List.of("10.8.0.0/16"), false,
+                new SimpleMeterRegistry());
+        MockHttpServletRequest clientA = new MockHttpServletRequest();
+        clientA.setRemoteAddr("10.8.3.4");
+        clientA.addHeader("X-Forwarded-For", "192.0.2.21");
+        MockHttpServletRequest clientB = new MockHttpServletRequest();
+        clientB.setRemoteAddr("10.8.3.4");
+        clientB.addHeader("X-Forwarded-For", "192.0.2.22");
+
+        for (int i = 0; i < 2; i++) {
+            throttle.checkAllowed("a" + i, throttle.clientIp(clientA));
+            throttle.checkAllowed("b" + i, throttle.clientIp(clientB));
+        }
+        assertThrows(LoginThrottledException.class, () -> throttle.checkAllowed("a", throttle.clientIp(clientA)));
+        assertThrows(LoginThrottledException.class, () -> throttle.checkAllowed("b", throttle.clientIp(clientB)));
+
+        // Outside the trusted range the header is ignored
+        MockHttpServletRequest outside = new MockHttpServletRequest();
+        outside.setRemoteAddr("10.9.0.1");
+        outside.addHeader("X-Forwarded-For", "192.0.2.21");
+        assertEquals("10.9.0.1", throttle.clientIp(outside));
+    }
+
+    @Test
+    void shouldServeCredentialsFromCacheUntilInvalidated() throws Exception {
+        userRepository.save(User.builder()
+                .username("cached_login")
+                .password(passwordEncoder.encode("first123"))
+                .transactionPin(passwordEncoder.encode("4321"))
+                .role("USER")
+                .build());
+        String login = "{\"username\":\"cached_login\",\"password\":\"%s\"}";
+        double hitsBefore = meterRegistry.get("cache.gets").tag("cache", "userCredentials").tag("result", "hit")
+                .functionCounter().count();
+
+        mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content(login.formatted("first123")))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/auth/validate-pin").param("username", "cached_login").param("pin", "4321"))
+                .andExpect(status().isOk());
+        assertEquals(hitsBefore + 1, meterRegistry.get("cache.gets").tag("cache", "userCredentials").tag("result", "hit")
+                .functionCounter().count());
+
+        // A write that bypasses invalidation is not seen until the entry is dropped
+        User user = userRepository.findByUsername("cached_login").orElseThrow();
+        user.setPassword(passwordEncoder.encode("second123"));
+        userRepository.save(user);
+        mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content(login.formatted("second123")))
+                .andExpect(status().isUnauthorized());
+
+        userCredentialCache.invalidate("cached_login");
+        mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content(login.formatted("second123")))
+                .andExpect(status().isOk());
+    }
+
+    private RequestPostProcessor serviceIdentity() {
+        long expires = System.currentTimeMillis() / 1000 + 30;
+        return request -> {
+            identitySigner.signedHeaders("test-service", "SERVICE", expires, request.getMethod(), request.getRequestURI())
+                    .forEach(request::addHeader);
+            return request;
+        };
+    }
+
+    @Test
+    void shouldStorePrivateKeysEncryptedAndRateLimitUnknownKidReloads() throws Exception {
+        String kid = keyId(jwtUtil.generateToken("keyuser", "USER"));
+        SigningKey stored = signingKeyRepository.findById(kid).orElseThrow();
+        assertTrue(stored.getPrivateKey().startsWith("v1:"));
+        assertNotEquals(Base64.getEncoder().encodeToString(signingKeyService.current().privateKey().getEncoded()),
+                stored.getPrivateKey());
+
+        // A kid that appears right after a reload is not looked up again until the minimum gap has passed
+        signingKeyService.publicKey("unknown-kid");
+        KeyPair keyPair = Jwts.SIG.ES256.keyPair().build();
+        signingKeyRepository.save(SigningKey.builder()
+                .kid("late-kid")
+                .algorithm("ES256")
+                .publicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()))
+                .privateKey(stored.getPrivateKey())
+                .createdAt(LocalDateTime.now().minusDays(1))
+                .build());
+        assertNull(signingKeyService.publicKey("late-kid"));
+        signingKeyRepository.deleteById("late-kid");
+    }
+
+    private String keyId(String token) throws Exception {
+        byte[] header = Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.')));
+        return objectMapper.readTree(header).get("kid").asText();
+    }
+
     @Test
     void shouldSaveUserToRepository() {
         // Test direct repository save with all required fields
@@ -135,4 +472,67 @@ class AuthServiceTests {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isUnauthorized());
     }
+
+    @Test
+    void shouldIssuePinGrantForValidPin() throws Exception {
+        User user = User.builder()
+                .username("testuser_junit")
+                .password(passwordEncoder.encode("test123"))
+                .transactionPin(passwordEncoder.encode("1234"))
+                .role("USER")
+                .build();
+        userRepository.save(user);
+
+        mockMvc.perform(post("/auth/validate-pin")
+                .param("username", "testuser_junit")
+                .param("pin", "1234"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.grant").exists())
+                .andExpect(jsonPath("$.maxUses").value(10));
+
+        mockMvc.perform(post("/auth/validate-pin")
+                .param("username", "testuser_junit")
+                .param("pin", "9999"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void shouldShedHashingWhenWorkersAreSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return NoOpPasswordEncoder.getInstance().encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 1, 1, Duration.ofSeconds(5), meterRegistry);
+        try {
+            // One hash running, one queued: the third is shed immediately
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+            while (meterRegistry.get("auth.hashing.queue.depth").gauge().value() < 1) {
+                Thread.sleep(10);
+            }
+            assertThrows(HashingCapacityExceededException.class, () -> encoder.encode("c"));
+
+            release.countDown();
+            assertEquals("a", running.get());
+            assertEquals("b", queued.get());
+            assertEquals(1.0, meterRegistry.get("auth.hashing.rejected").counter().count());
+            assertEquals(2, meterRegistry.get("auth.hashing.duration").tag("operation", "encode").timer().count());
+        } finally {
+            encoder.destroy();
+        }
+    }
 }
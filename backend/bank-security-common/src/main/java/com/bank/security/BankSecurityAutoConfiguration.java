@@ -0,0 +1,152 @@
+package com.bank.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.client.DefaultClientRequestObservationConvention;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass(HttpSecurity.class)
+@ConditionalOnProperty("jwt.jwks-uri")
+public class BankSecurityAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwksKeyLocator jwksKeyLocator(
+            @Value("${jwt.jwks-uri}") URI jwksUri,
+            @Value("${jwt.jwks-refresh-interval:5m}") Duration refreshInterval,
+            @Value("${jwt.jwks-min-refresh-gap:30s}") Duration minRefreshGap) {
+        return new JwksKeyLocator(jwksUri, refreshInterval, minRefreshGap);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RevocationList revocationList(
+            @Value("${jwt.revocation.uri:http://localhost:8080/auth/revocations}") URI revocationsUri,
+            @Value("${jwt.revocation.refresh-interval:10s}") Duration refreshInterval,
+            @Value("${jwt.revocation.full-resync-interval:1h}") Duration fullResyncInterval,
+            @Value("${jwt.revocation.overlap:30s}") Duration overlap,
+            @Value("${jwt.revocation.expected-entries:100000}") long expectedEntries,
+            @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+            @Value("${jwt.revocation.check-cache-ttl:30s}") Duration exactCheckTtl,
+            IdentitySigner identitySigner,
+            @Value("${spring.application.name:service}") String serviceName,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new RevocationList(revocationsUri, refreshInterval, fullResyncInterval, overlap, expectedEntries,
+                falsePositiveRate, exactCheckTtl, identitySigner, serviceName,
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtVerifier jwtVerifier(JwksKeyLocator jwksKeyLocator, RevocationList revocationList,
+                                   @Value("${jwt.cache.max-size:10000}") long cacheSize) {
+        return new JwtVerifier(jwksKeyLocator, cacheSize, revocationList);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IdentitySigner identitySigner(@Value("${bank.security.identity.secret:}") String secret,
+                                         @Value("${bank.security.identity.max-ttl:60s}") Duration maxTtl) {
+        return new IdentitySigner(secret, maxTtl);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RoleAuthorities roleAuthorities(@Value("${bank.security.roles:USER,ADMIN,SERVICE}") List<String> roles) {
+        return new RoleAuthorities(roles);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtAuthFilter jwtAuthFilter(JwtVerifier jwtVerifier, IdentitySigner identitySigner,
+                                       RoleAuthorities roleAuthorities, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new JwtAuthFilter(jwtVerifier, identitySigner, roleAuthorities,
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    // The filter runs inside the security chain; keep Boot from also registering it with the servlet container
+    @Bean
+    public FilterRegistrationBean<JwtAuthFilter> jwtAuthFilterRegistration(JwtAuthFilter jwtAuthFilter) {
+        FilterRegistrationBean<JwtAuthFilter> registration = new FilterRegistrationBean<>(jwtAuthFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    // Matched by name: MVC's HandlerMappingIntrospector is also a CorsConfigurationSource
+    @Bean
+    @ConditionalOnMissingBean(name = "corsConfigurationSource")
+    public CorsConfigurationSource corsConfigurationSource(
+            @Value("${bank.security.cors.allowed-origins:http://localhost:3000}") List<String> allowedOrigins) {
+        CorsConfiguration config = new CorsConfiguration();
+        config.setAllowedOrigins(allowedOrigins);
+        config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        config.setAllowedHeaders(List.of("*"));
+        config.setAllowCredentials(true);
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", config);
+        return source;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public BankHttpSecurity bankHttpSecurity(JwtAuthFilter jwtAuthFilter,
+                                             @Qualifier("corsConfigurationSource") CorsConfigurationSource corsConfigurationSource) {
+        return new BankHttpSecurity(jwtAuthFilter, corsConfigurationSource);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(ExchangeFilterFunction.class)
+    static class ServiceIdentityConfiguration {
+
+        // Add to WebClient builders so calls to other services carry a signed SERVICE identity
+        @Bean
+        @ConditionalOnMissingBean
+        public ServiceIdentity serviceIdentity(IdentitySigner identitySigner,
+                                               @Value("${spring.application.name:service}") String serviceName,
+                                               @Value("${bank.security.identity.service-ttl:30s}") Duration ttl) {
+            return new ServiceIdentity(identitySigner, serviceName, ttl);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass({ExchangeFilterFunction.class, DiscoveryClient.class})
+    static class InstanceBroadcastConfiguration {
+
+        // Not load-balanced: addresses each instance directly, for notifications every replica must see
+        @Bean
+        @ConditionalOnMissingBean
+        public InstanceBroadcaster instanceBroadcaster(DiscoveryClient discoveryClient, ServiceIdentity serviceIdentity,
+                                                       ObjectProvider<ObservationRegistry> observationRegistry) {
+            WebClient webClient = WebClient.builder()
+                    .observationRegistry(observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP))
+                    .observationConvention(new DefaultClientRequestObservationConvention())
+                    .filter(serviceIdentity)
+                    .build();
+            return new InstanceBroadcaster(discoveryClient, webClient);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.bank.security;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Posts a notification to every registered instance of a service, for state each replica keeps on its own
+ * (e.g. caches). Requests bypass the load balancer and carry the caller's signed SERVICE identity. Delivery is
+ * best effort: failures are logged, so only use it where a missed message is bounded by some other mechanism.
+ */
+public class InstanceBroadcaster {
+    private static final Log log = LogFactory.getLog(InstanceBroadcaster.class);
+
+    private final DiscoveryClient discoveryClient;
+    private final WebClient webClient;
+
+    public InstanceBroadcaster(DiscoveryClient discoveryClient, WebClient webClient) {
+        this.discoveryClient = discoveryClient;
+        this.webClient = webClient;
+    }
+
+    public void post(String serviceId, String path, Object body) {
+        for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+            webClient.post()
+                    .uri(instance.getUri().resolve(path))
+                    .bodyValue(body)
+                    .retrieve()
+                    .toBodilessEntity()
+                    .subscribe(response -> { },
+                            e -> log.warn("Notification to " + serviceId + " at " + instance.getUri() + " failed", e));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.bank.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.Key;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves JWT verification keys by kid from auth-service's JWKS endpoint. The key set is fetched once and
+ * refreshed in the background; a token with an unknown kid triggers one rate-limited refresh so a rotated
+ * key is picked up without a restart. Verification itself never leaves the process.
+ */
+public class JwksKeyLocator extends LocatorAdapter<Key> implements AutoCloseable {
+    private static final Log log = LogFactory.getLog(JwksKeyLocator.class);
+
+    private final URI jwksUri;
+    private final Duration minRefreshGap;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService refresher;
+    private volatile Map<String, Key> keys = Map.of();
+    private volatile long lastFetchNanos;
+
+    public JwksKeyLocator(URI jwksUri, Duration refreshInterval, Duration minRefreshGap) {
+        this.jwksUri = jwksUri;
+        this.minRefreshGap = minRefreshGap;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        this.lastFetchNanos = System.nanoTime() - minRefreshGap.toNanos();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jwks-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // First fetch happens off the startup path; a miss before it lands falls back to an on-demand refresh
+        refresher.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            throw new UnsupportedJwtException("JWT has no key id");
+        }
+        Key key = keys.get(kid);
+        if (key == null) {
+            key = refreshForUnknownKid(kid);
+        }
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown signing key id: " + kid);
+        }
+        return key;
+    }
+
+    /**
+     * Fetches the key set and swaps it in. Returns false, keeping the previous keys, if the fetch fails.
+     */
+    public boolean refresh() {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(jwksUri).timeout(Duration.ofSeconds(5)).GET().build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                log.warn("JWKS fetch from " + jwksUri + " returned HTTP " + response.statusCode());
+                return false;
+            }
+            JwkSet jwkSet = Jwks.setParser().build().parse(response.body());
+            Map<String, Key> fetched = new HashMap<>();
+            for (Jwk<?> jwk : jwkSet) {
+                if (jwk.getId() != null) {
+                    fetched.put(jwk.getId(), jwk.toKey());
+                }
+            }
+            keys = Map.copyOf(fetched);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.warn("JWKS fetch from " + jwksUri + " failed: " + e.getMessage());
+            return false;
+        } finally {
+            lastFetchNanos = System.nanoTime();
+        }
+    }
+
+    private synchronized Key refreshForUnknownKid(String kid) {
+        // Another thread may already have refreshed while we waited for the lock
+        Key key = keys.get(kid);
+        if (key == null && System.nanoTime() - lastFetchNanos >= minRefreshGap.toNanos()) {
+            refresh();
+            key = keys.get(kid);
+        }
+        return key;
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+}
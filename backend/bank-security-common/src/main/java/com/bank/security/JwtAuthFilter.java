@@ -0,0 +1,79 @@
+package com.bank.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+public class JwtAuthFilter extends OncePerRequestFilter {
+    private static final String BEARER = "Bearer ";
+
+    private final JwtVerifier jwtVerifier;
+    private final IdentitySigner identitySigner;
+    private final RoleAuthorities roleAuthorities;
+    // Timers are resolved once; looking them up per request would allocate tag arrays
+    private final Timer authenticated;
+    private final Timer forwarded;
+    private final Timer rejected;
+    private final Timer anonymous;
+
+    public JwtAuthFilter(JwtVerifier jwtVerifier, IdentitySigner identitySigner, RoleAuthorities roleAuthorities,
+                         MeterRegistry meterRegistry) {
+        this.jwtVerifier = jwtVerifier;
+        this.identitySigner = identitySigner;
+        this.roleAuthorities = roleAuthorities;
+        this.authenticated = timer(meterRegistry, "authenticated");
+        this.forwarded = timer(meterRegistry, "forwarded");
+        this.rejected = timer(meterRegistry, "rejected");
+        this.anonymous = timer(meterRegistry, "anonymous");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        Timer outcome = anonymous;
+        String authHeader = request.getHeader("Authorization");
+        String signature = request.getHeader(IdentitySigner.SIGNATURE_HEADER);
+
+        if (signature != null) {
+            // Identity already verified by the gateway or signed by a calling service: one small HMAC, no JWT parsing
+            String username = request.getHeader(IdentitySigner.USER_HEADER);
+            String role = request.getHeader(IdentitySigner.ROLE_HEADER);
+            if (identitySigner.verify(username, role, request.getHeader(IdentitySigner.EXPIRES_HEADER),
+                    request.getMethod(), request.getRequestURI(), request.getHeader(IdentitySigner.NONCE_HEADER), signature)) {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new JwtAuthentication(username, roleAuthorities.forRole(role)));
+                outcome = forwarded;
+            } else {
+                outcome = rejected;
+            }
+        } else if (authHeader != null && authHeader.startsWith(BEARER)) {
+            Claims claims = jwtVerifier.parseClaims(authHeader.substring(BEARER.length()));
+            if (claims != null) {
+                var authorities = roleAuthorities.forRole(claims.get("role", String.class));
+                SecurityContextHolder.getContext().setAuthentication(new JwtAuthentication(claims.getSubject(), authorities));
+                outcome = authenticated;
+            } else {
+                outcome = rejected;
+            }
+        }
+        outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        filterChain.doFilter(request, response);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("security.jwt.authentication")
+                .description("Time spent authenticating the bearer token of a request")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,58 @@
+package com.bank.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Authentication for a verified bearer token. Unlike UsernamePasswordAuthenticationToken it does not
+ * copy the authority list, so every request for a role shares the list held by {@link RoleAuthorities}.
+ */
+public class JwtAuthentication implements Authentication {
+    private final String username;
+    private final List<GrantedAuthority> authorities;
+
+    public JwtAuthentication(String username, List<GrantedAuthority> authorities) {
+        this.username = username;
+        this.authorities = authorities;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getDetails() {
+        return null;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return username;
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return true;
+    }
+
+    @Override
+    public void setAuthenticated(boolean isAuthenticated) {
+        if (!isAuthenticated) {
+            throw new UnsupportedOperationException("A JwtAuthentication cannot be marked unauthenticated");
+        }
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
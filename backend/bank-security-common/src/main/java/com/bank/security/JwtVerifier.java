@@ -0,0 +1,101 @@
+package com.bank.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.Locator;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies auth-service's asymmetrically signed JWTs against keys resolved by kid. The parser is built once,
+ * and verified claims are cached by token hash until the token expires, so repeat requests from a session
+ * skip signature checks.
+ */
+public class JwtVerifier {
+    private final JwtParser jwtParser;
+    private final Cache<String, Claims> verifiedTokens;
+    private final RevocationList revocationList;
+
+    public JwtVerifier(Locator<Key> keyLocator, long cacheSize) {
+        this(keyLocator, cacheSize, null);
+    }
+
+    public JwtVerifier(Locator<Key> keyLocator, long cacheSize, RevocationList revocationList) {
+        this.revocationList = revocationList;
+        this.jwtParser = Jwts.parser().keyLocator(keyLocator).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        return remainingNanos(claims);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return remainingNanos(claims);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Returns the verified claims of an unexpired, unrevoked token, or null otherwise.
+     */
+    public Claims parseClaims(String token) {
+        String cacheKey = hash(token);
+        Claims claims = verifiedTokens.getIfPresent(cacheKey);
+        if (claims == null) {
+            try {
+                Jws<Claims> jws = jwtParser.parseSignedClaims(token);
+                // Only login tokens; other tokens auth-service signs with the same keys (PIN grants) set their own typ
+                if (jws.getHeader().getType() != null && !"JWT".equals(jws.getHeader().getType())) {
+                    return null;
+                }
+                claims = jws.getPayload();
+            } catch (JwtException | IllegalArgumentException e) {
+                return null;
+            }
+            if (claims.getExpiration() == null) {
+                return null;
+            }
+            verifiedTokens.put(cacheKey, claims);
+        }
+        if (!claims.getExpiration().after(new Date())) {
+            return null;
+        }
+        // Checked on every call, cached or not: a token can be revoked after it was first verified
+        return revocationList != null && revocationList.isRevoked(claims) ? null : claims;
+    }
+
+    private static long remainingNanos(Claims claims) {
+        long millis = claims.getExpiration().getTime() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
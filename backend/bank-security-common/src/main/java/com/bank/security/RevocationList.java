@@ -0,0 +1,206 @@
+package com.bank.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local replica of auth-service's token revocation list, held as a bloom filter of revocation keys. The
+ * common case (token not revoked) costs a few bit probes; only a filter hit is confirmed with an exact
+ * check against auth-service. The filter is extended incrementally by revocation time and rebuilt from
+ * scratch periodically so expired revocations drop out. Each refresh re-reads a trailing overlap window,
+ * so an entry whose transaction committed after a later one had already been read is still picked up.
+ * Requests carry a signed SERVICE identity, as auth-service only serves the feed to services.
+ */
+public class RevocationList implements AutoCloseable {
+    private static final Log log = LogFactory.getLog(RevocationList.class);
+    private static final int PAGE_SIZE = 1000;
+    private static final long IDENTITY_TTL_SECONDS = 30;
+
+    private final URI revocationsUri;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+    private final long fullResyncNanos;
+    private final long overlapMillis;
+    private final IdentitySigner identitySigner;
+    private final String serviceName;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ScheduledExecutorService refresher;
+    // Exact answers for tokens that hit the filter, so a false positive costs one remote call per window
+    private final Cache<String, Boolean> exactChecks;
+    private final Counter confirmedRevoked;
+    private final Counter falsePositives;
+    private final Counter checkFailures;
+    private volatile Snapshot snapshot;
+
+    public RevocationList(URI revocationsUri, Duration refreshInterval, Duration fullResyncInterval, Duration overlap,
+                          long expectedRevocations, double falsePositiveRate, Duration exactCheckTtl,
+                          IdentitySigner identitySigner, String serviceName, MeterRegistry meterRegistry) {
+        this.revocationsUri = revocationsUri;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.fullResyncNanos = fullResyncInterval.toNanos();
+        this.overlapMillis = overlap.toMillis();
+        this.identitySigner = identitySigner;
+        this.serviceName = serviceName;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        this.exactChecks = Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(exactCheckTtl).build();
+        this.snapshot = new Snapshot(new BloomFilter(expectedRevocations, falsePositiveRate), 0, 0, System.nanoTime());
+        this.confirmedRevoked = counter(meterRegistry, "revoked");
+        this.falsePositives = counter(meterRegistry, "false-positive");
+        this.checkFailures = counter(meterRegistry, "unavailable");
+        Gauge.builder("security.jwt.revocation.entries", this, list -> list.snapshot.size())
+                .description("Revocation keys in the local bloom filter")
+                .register(meterRegistry);
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "revocation-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+        String subject = claims.getSubject();
+        BloomFilter filter = snapshot.filter();
+        boolean hit = (jti != null && filter.mightContain("jti:" + jti))
+                || (subject != null && filter.mightContain("sub:" + subject));
+        if (!hit) {
+            return false;
+        }
+        long issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() / 1000 : 0;
+        String cacheKey = jti != null ? jti : subject + "@" + issuedAt;
+        Boolean revoked = exactChecks.getIfPresent(cacheKey);
+        if (revoked == null) {
+            revoked = exactCheck(jti, subject, issuedAt);
+            if (revoked == null) {
+                // auth-service unreachable: a filter hit is most likely a real revocation, so fail closed
+                checkFailures.increment();
+                return true;
+            }
+            exactChecks.put(cacheKey, revoked);
+            (revoked ? confirmedRevoked : falsePositives).increment();
+        }
+        return revoked;
+    }
+
+    /**
+     * Pulls revocations from the overlap window before the newest one seen into the filter, or rebuilds the
+     * filter when it is due for a resync or has outgrown its sizing.
+     */
+    public synchronized boolean refresh() {
+        Snapshot current = snapshot;
+        boolean rebuild = System.nanoTime() - current.builtAtNanos() > fullResyncNanos
+                || current.size() > expectedRevocations;
+        Snapshot next = rebuild
+                ? new Snapshot(new BloomFilter(Math.max(expectedRevocations, current.size() * 2), falsePositiveRate),
+                        0, 0, System.nanoTime())
+                : current;
+        long since = Math.max(0, next.cursor() - overlapMillis);
+        long afterId = 0;
+        try {
+            while (true) {
+                JsonNode page = get(revocationsUri + "?since=" + since + "&afterId=" + afterId + "&limit=" + PAGE_SIZE);
+                JsonNode entries = page.path("entries");
+                long added = 0;
+                for (JsonNode entry : entries) {
+                    // The overlap window is read again on every refresh; only count keys the filter did not hold
+                    String key = entry.path("key").asText();
+                    if (!next.filter().mightContain(key)) {
+                        next.filter().put(key);
+                        added++;
+                    }
+                }
+                since = page.path("lastRevokedAt").asLong(since);
+                afterId = page.path("lastId").asLong(afterId);
+                next = new Snapshot(next.filter(), Math.max(next.cursor(), since), next.size() + added,
+                        next.builtAtNanos());
+                if (!rebuild) {
+                    // Publish each page as it lands; a rebuilt filter is only swapped in once complete
+                    snapshot = next;
+                }
+                if (entries.size() < PAGE_SIZE) {
+                    break;
+                }
+            }
+            snapshot = next;
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.warn("Revocation list refresh from " + revocationsUri + " failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private Boolean exactCheck(String jti, String subject, long issuedAt) {
+        StringBuilder uri = new StringBuilder(revocationsUri.toString()).append("/check?iat=").append(issuedAt);
+        if (jti != null) {
+            uri.append("&jti=").append(URLEncoder.encode(jti, StandardCharsets.UTF_8));
+        }
+        if (subject != null) {
+            uri.append("&sub=").append(URLEncoder.encode(subject, StandardCharsets.UTF_8));
+        }
+        try {
+            return get(uri.toString()).path("revoked").asBoolean(true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.warn("Revocation check against " + revocationsUri + " failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private JsonNode get(String uri) throws IOException, InterruptedException {
+        long expires = System.currentTimeMillis() / 1000 + IDENTITY_TTL_SECONDS;
+        URI target = URI.create(uri);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(target).timeout(Duration.ofSeconds(5));
+        identitySigner.signedHeaders(serviceName, ServiceIdentity.ROLE, expires, "GET", target.getRawPath())
+                .forEach(builder::header);
+        HttpRequest request = builder.GET().build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("security.jwt.revocation.checks")
+                .description("Bloom filter hits confirmed against auth-service")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    // cursor: revocation time (epoch millis) of the newest entry read
+    private record Snapshot(BloomFilter filter, long cursor, long size, long builtAtNanos) {
+    }
+}
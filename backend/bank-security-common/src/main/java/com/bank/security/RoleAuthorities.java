@@ -0,0 +1,27 @@
+package com.bank.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared, immutable authority lists per role so authenticating a request allocates none.
+ */
+public class RoleAuthorities {
+    private final Map<String, List<GrantedAuthority>> byRole = new ConcurrentHashMap<>();
+
+    public RoleAuthorities(List<String> knownRoles) {
+        knownRoles.forEach(this::forRole);
+    }
+
+    public List<GrantedAuthority> forRole(String role) {
+        if (role == null) {
+            return List.of();
+        }
+        // Roles come from verified tokens only, so the map stays as small as the set of issued roles
+        return byRole.computeIfAbsent(role, r -> List.of(new SimpleGrantedAuthority("ROLE_" + r)));
+    }
+}
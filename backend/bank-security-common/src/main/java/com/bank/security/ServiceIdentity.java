@@ -0,0 +1,37 @@
+package com.bank.security;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Adds signed SERVICE identity headers to outgoing service-to-service calls so internal endpoints can
+ * require a caller identity. Each request is signed for its own method, path and nonce; retries run the
+ * filter again and so get fresh headers.
+ */
+public class ServiceIdentity implements ExchangeFilterFunction {
+    public static final String ROLE = "SERVICE";
+
+    private final IdentitySigner identitySigner;
+    private final String serviceName;
+    private final long ttlSeconds;
+
+    public ServiceIdentity(IdentitySigner identitySigner, String serviceName, Duration ttl) {
+        this.identitySigner = identitySigner;
+        this.serviceName = serviceName;
+        this.ttlSeconds = ttl.toSeconds();
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        long expires = System.currentTimeMillis() / 1000 + ttlSeconds;
+        return next.exchange(ClientRequest.from(request)
+                .headers(headers -> identitySigner.signedHeaders(serviceName, ROLE, expires,
+                        request.method().name(), request.url().getRawPath()).forEach(headers::set))
+                .build());
+    }
+}
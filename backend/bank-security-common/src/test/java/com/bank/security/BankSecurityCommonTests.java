@@ -0,0 +1,301 @@
+package com.bank.security;
+
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BankSecurityCommonTests {
+    private static final String SECRET = "TestSecretKeyForJWTTokenGenerationMustBeLongEnoughForHS512Algorithm123456789";
+
+    private static final KeyPair SIGNING_KEY = Jwts.SIG.ES256.keyPair().build();
+
+    private static HttpServer jwksServer;
+    private static volatile String jwks;
+    private static final List<Revoked> revoked = new CopyOnWriteArrayList<>();
+    private static volatile String lastRevocationSince;
+    private static volatile String lastRevocationCaller;
+    private static JwksKeyLocator keyLocator;
+
+    private final JwtVerifier jwtVerifier = new JwtVerifier(keyLocator, 100);
+    private final IdentitySigner identitySigner = new IdentitySigner(SECRET, Duration.ofSeconds(60));
+    private final RoleAuthorities roleAuthorities = new RoleAuthorities(List.of("USER", "ADMIN"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtAuthFilter filter = new JwtAuthFilter(jwtVerifier, identitySigner, roleAuthorities, meterRegistry);
+
+    @BeforeAll
+    static void startJwksServer() throws Exception {
+        jwks = jwks(jwk("k1", SIGNING_KEY));
+        jwksServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        jwksServer.createContext("/jwks.json", exchange -> {
+            byte[] body = jwks.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        jwksServer.createContext("/revocations", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            lastRevocationSince = query.replaceAll(".*since=(\\d+).*", "$1");
+            lastRevocationCaller = exchange.getRequestHeaders().getFirst(IdentitySigner.ROLE_HEADER);
+            long since = Long.parseLong(lastRevocationSince);
+            long afterId = Long.parseLong(query.replaceAll(".*afterId=(\\d+).*", "$1"));
+            // Keyset order (revokedAt, id), as auth-service serves it
+            List<Revoked> page = revoked.stream()
+                    .filter(r -> r.revokedAt() > since || (r.revokedAt() == since && r.id() > afterId))
+                    .sorted(Comparator.comparingLong(Revoked::revokedAt).thenComparingLong(Revoked::id))
+                    .toList();
+            StringBuilder entries = new StringBuilder();
+            for (Revoked r : page) {
+                entries.append(entries.isEmpty() ? "" : ",")
+                        .append("{\"id\":").append(r.id()).append(",\"key\":\"").append(r.key()).append("\"}");
+            }
+            Revoked last = page.isEmpty() ? new Revoked(afterId, null, since) : page.get(page.size() - 1);
+            byte[] body = ("{\"entries\":[" + entries + "],\"lastId\":" + last.id()
+                    + ",\"lastRevokedAt\":" + last.revokedAt() + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        jwksServer.createContext("/revocations/check", exchange -> {
+            boolean revoked = exchange.getRequestURI().getQuery().contains("jti=revoked");
+            byte[] body = ("{\"revoked\":" + revoked + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        jwksServer.start();
+        URI uri = URI.create("http://localhost:" + jwksServer.getAddress().getPort() + "/jwks.json");
+        keyLocator = new JwksKeyLocator(uri, Duration.ofHours(1), Duration.ZERO);
+    }
+
+    @AfterAll
+    static void stopJwksServer() {
+        keyLocator.close();
+        jwksServer.stop(0);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldCacheVerifiedClaims() {
+        String token = token("alice", "USER", 60_000);
+
+        assertSame(jwtVerifier.parseClaims(token), jwtVerifier.parseClaims(token));
+        assertEquals("alice", jwtVerifier.parseClaims(token).getSubject());
+    }
+
+    @Test
+    void shouldRejectExpiredAndForeignTokens() {
+        assertNull(jwtVerifier.parseClaims(token("alice", "USER", -1_000)));
+        assertNull(jwtVerifier.parseClaims("not-a-jwt"));
+
+        // Claims a published kid but is signed with a different key
+        String foreign = Jwts.builder()
+                .header().keyId("k1").and()
+                .subject("mallory")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Jwts.SIG.ES256.keyPair().build().getPrivate(), Jwts.SIG.ES256)
+                .compact();
+        assertNull(jwtVerifier.parseClaims(foreign));
+
+        // A PIN grant is signed with the same key but is not a login token
+        String grant = Jwts.builder()
+                .header().keyId("k1").type("pin-grant+jwt").and()
+                .subject("alice")
+                .claim("role", "USER")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SIGNING_KEY.getPrivate(), Jwts.SIG.ES256)
+                .compact();
+        assertNull(jwtVerifier.parseClaims(grant));
+    }
+
+    @Test
+    void shouldPickUpRotatedKeyWithoutRestart() {
+        KeyPair rotated = Jwts.SIG.ES256.keyPair().build();
+        String token = Jwts.builder()
+                .header().keyId("k2").and()
+                .subject("carol")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(rotated.getPrivate(), Jwts.SIG.ES256)
+                .compact();
+        assertNull(jwtVerifier.parseClaims(token));
+
+        // Unknown kid triggers a refresh of the published set
+        jwks = jwks(jwk("k1", SIGNING_KEY), jwk("k2", rotated));
+        assertEquals("carol", jwtVerifier.parseClaims(token).getSubject());
+        assertEquals("alice", jwtVerifier.parseClaims(token("alice", "USER", 60_000)).getSubject());
+    }
+
+    @Test
+    void shouldRejectRevokedTokensWithIncrementalRefresh() {
+        URI uri = URI.create("http://localhost:" + jwksServer.getAddress().getPort() + "/revocations");
+        revoked.add(new Revoked(1, "jti:revoked-1", 10_000));
+        try (RevocationList revocationList = new RevocationList(uri, Duration.ofHours(1), Duration.ofHours(1),
+                Duration.ofSeconds(5), 1_000, 0.01, Duration.ofMinutes(1), identitySigner, "test-service", meterRegistry)) {
+            assertTrue(revocationList.refresh());
+            assertEquals("SERVICE", lastRevocationCaller);
+            JwtVerifier verifier = new JwtVerifier(keyLocator, 100, revocationList);
+            String live = token("alice", "USER", 60_000);
+            String revokedLater = tokenWithId("revoked-2");
+
+            assertNull(verifier.parseClaims(tokenWithId("revoked-1")));
+            assertNotNull(verifier.parseClaims(live));
+            assertNotNull(verifier.parseClaims(revokedLater));
+
+            // Only the overlap window before the newest seen entry is re-read, which still catches an entry
+            // that committed late with an earlier revocation time; the cached verification is re-checked
+            revoked.add(new Revoked(2, "jti:revoked-2", 9_000));
+            assertTrue(revocationList.refresh());
+            assertEquals("5000", lastRevocationSince);
+            assertNull(verifier.parseClaims(revokedLater));
+            assertNotNull(verifier.parseClaims(live));
+        } finally {
+            revoked.clear();
+        }
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bloomFilter.put("jti:" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(bloomFilter.mightContain("jti:" + i));
+            if (bloomFilter.mightContain("other:" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void shouldAuthenticateWithSharedAuthorities() throws Exception {
+        String token = token("admin", "ADMIN", 60_000);
+
+        Authentication first = authenticate(token);
+        Authentication second = authenticate(token);
+
+        assertEquals("admin", first.getPrincipal());
+        assertSame(first.getAuthorities(), second.getAuthorities());
+        assertEquals("ROLE_ADMIN", first.getAuthorities().iterator().next().getAuthority());
+        assertEquals(2, meterRegistry.get("security.jwt.authentication").tag("outcome", "authenticated").timer().count());
+    }
+
+    @Test
+    void shouldLeaveInvalidTokenUnauthenticated() throws Exception {
+        assertNull(authenticate("garbage"));
+        assertEquals(1, meterRegistry.get("security.jwt.authentication").tag("outcome", "rejected").timer().count());
+    }
+
+    @Test
+    void shouldTrustSignedIdentityHeadersOnly() throws Exception {
+        long expires = System.currentTimeMillis() / 1000 + 30;
+        Map<String, String> headers = identitySigner.signedHeaders("bob", "USER", expires, "GET", "/accounts/1");
+
+        assertEquals("bob", authenticate(identityRequest(headers, "GET", "/accounts/1")).getName());
+        // The same headers a second time are a replay
+        assertNull(authenticate(identityRequest(headers, "GET", "/accounts/1")));
+
+        // Bound to the method and path they were signed for
+        assertNull(authenticate(identityRequest(
+                identitySigner.signedHeaders("bob", "USER", expires, "GET", "/accounts/1"), "DELETE", "/accounts/1")));
+        assertNull(authenticate(identityRequest(
+                identitySigner.signedHeaders("bob", "USER", expires, "GET", "/accounts/1"), "GET", "/accounts/2")));
+
+        Map<String, String> escalated = new HashMap<>(identitySigner.signedHeaders("bob", "USER", expires, "GET", "/accounts/1"));
+        escalated.put(IdentitySigner.ROLE_HEADER, "ADMIN");
+        assertNull(authenticate(identityRequest(escalated, "GET", "/accounts/1")));
+
+        long expired = System.currentTimeMillis() / 1000 - 1;
+        assertFalse(verify(identitySigner.signedHeaders("bob", "USER", expired, "GET", "/a"), "GET", "/a"));
+        long tooLong = System.currentTimeMillis() / 1000 + 3600;
+        assertFalse(verify(identitySigner.signedHeaders("bob", "USER", tooLong, "GET", "/a"), "GET", "/a"));
+        assertThrows(IllegalStateException.class, () -> new IdentitySigner("short", Duration.ofSeconds(60)));
+    }
+
+    private boolean verify(Map<String, String> headers, String method, String path) {
+        return identitySigner.verify(headers.get(IdentitySigner.USER_HEADER), headers.get(IdentitySigner.ROLE_HEADER),
+                headers.get(IdentitySigner.EXPIRES_HEADER), method, path, headers.get(IdentitySigner.NONCE_HEADER),
+                headers.get(IdentitySigner.SIGNATURE_HEADER));
+    }
+
+    private MockHttpServletRequest identityRequest(Map<String, String> headers, String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        headers.forEach(request::addHeader);
+        return request;
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        return authenticate(request);
+    }
+
+    private Authentication authenticate(MockHttpServletRequest request) throws Exception {
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static String token(String username, String role, long ttlMillis) {
+        return Jwts.builder()
+                .subject(username)
+                .claim("role", role)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + ttlMillis))
+                .header().keyId("k1").and()
+                .signWith(SIGNING_KEY.getPrivate(), Jwts.SIG.ES256)
+                .compact();
+    }
+
+    private static String tokenWithId(String jti) {
+        return Jwts.builder()
+                .id(jti)
+                .subject("dave")
+                .claim("role", "USER")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .header().keyId("k1").and()
+                .signWith(SIGNING_KEY.getPrivate(), Jwts.SIG.ES256)
+                .compact();
+    }
+
+    private static String jwk(String kid, KeyPair keyPair) {
+        return Jwks.json(Jwks.builder().key((ECPublicKey) keyPair.getPublic()).id(kid).build());
+    }
+
+    private static String jwks(String... keys) {
+        return "{\"keys\":[" + String.join(",", keys) + "]}";
+    }
+
+    private record Revoked(long id, String key, long revokedAt) {
+    }
+}
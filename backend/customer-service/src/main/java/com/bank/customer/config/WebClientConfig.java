@@ -0,0 +1,27 @@
+package com.bank.customer.config;
+
+import com.bank.security.ServiceIdentity;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.DefaultClientRequestObservationConvention;
+import org.springframework.web.reactive.function.client.WebClient;
+
+@Configuration
+public class WebClientConfig {
+
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder webClientBuilder(ObservationRegistry observationRegistry, ServiceIdentity serviceIdentity) {
+        return WebClient.builder()
+                .observationRegistry(observationRegistry)
+                .observationConvention(new DefaultClientRequestObservationConvention())
+                .filter(serviceIdentity);
+    }
+
+    @Bean
+    public WebClient accountServiceWebClient(WebClient.Builder builder) {
+        return builder.baseUrl("http://ACCOUNT-SERVICE").build();
+    }
+}
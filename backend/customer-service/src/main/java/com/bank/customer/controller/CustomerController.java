@@ -1,21 +1,31 @@
 package com.bank.customer.controller;
 
+import com.bank.customer.dto.CustomerPage;
+import com.bank.customer.dto.CustomerStatusRequest;
 import com.bank.customer.entity.Customer;
+import com.bank.customer.service.CustomerExportService;
 import com.bank.customer.service.CustomerService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/customers")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
 public class CustomerController {
+    private static final String NDJSON = "application/x-ndjson";
+
     private final CustomerService customerService;
+    private final CustomerExportService customerExportService;
 
     @PostMapping
     public ResponseEntity<Customer> createCustomer(@Valid @RequestBody Customer customer) {
@@ -32,6 +42,26 @@ public class CustomerController {
         return ResponseEntity.ok(customerService.getAllCustomers());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CustomerPage> getCustomerPage(
+            @RequestParam(required = false) Customer.CustomerStatus status,
+            @RequestParam(defaultValue = "customerId") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(customerService.getCustomerPage(status, sort, direction, cursor, size));
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportCustomers(
+            @RequestParam(required = false) Customer.CustomerStatus status) {
+        StreamingResponseBody body = out -> customerExportService.writeCustomers(status, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"customers.ndjson\"")
+                .body(body);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Customer> updateCustomer(@PathVariable Long id, @Valid @RequestBody Customer customer) {
         return ResponseEntity.ok(customerService.updateCustomer(id, customer));
@@ -43,6 +73,12 @@ public class CustomerController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/batch-status")
+    public ResponseEntity<Map<Long, Customer.CustomerStatus>> getCustomerStatuses(
+            @Valid @RequestBody CustomerStatusRequest request) {
+        return ResponseEntity.ok(customerService.getCustomerStatuses(request.getCustomerIds()));
+    }
+
     @GetMapping("/user/{username}")
     public ResponseEntity<Customer> getCustomerByUsername(@PathVariable String username) {
         return ResponseEntity.ok(customerService.getCustomerByUsername(username));
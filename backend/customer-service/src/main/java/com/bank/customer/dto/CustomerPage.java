@@ -0,0 +1,17 @@
+package com.bank.customer.dto;
+
+import com.bank.customer.entity.Customer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerPage {
+    private List<Customer> customers;
+    private String nextCursor;
+    private boolean hasMore;
+}
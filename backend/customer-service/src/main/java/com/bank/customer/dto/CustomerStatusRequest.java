@@ -0,0 +1,18 @@
+package com.bank.customer.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerStatusRequest {
+    @NotEmpty(message = "At least one customer ID is required")
+    @Size(max = 1000, message = "At most 1000 customer IDs per lookup")
+    private Set<Long> customerIds;
+}
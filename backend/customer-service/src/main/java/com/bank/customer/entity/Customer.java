@@ -1,12 +1,14 @@
 package com.bank.customer.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
 
 @Entity
-@Table(name = "customers")
+@Table(name = "customers", indexes =
+        @Index(name = "idx_customers_name", columnList = "name, customer_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -41,6 +43,12 @@ public class Customer {
     @Builder.Default
     private CustomerStatus status = CustomerStatus.ACTIVE;
 
+    // Set with every status change and cleared once account-service has the new status
+    @JsonIgnore
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    @Builder.Default
+    private boolean statusSyncPending = false;
+
     public enum CustomerStatus {
         ACTIVE, INACTIVE, SUSPENDED
     }
@@ -1,10 +1,21 @@
 package com.bank.customer.repository;
 
 import com.bank.customer.entity.Customer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
@@ -12,4 +23,64 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Optional<Customer> findByUsername(String username);
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
+
+    // Selects just the two columns; no Customer entities are loaded into the persistence context
+    @Query("SELECT c.customerId AS customerId, c.status AS status FROM Customer c WHERE c.customerId IN :customerIds")
+    List<StatusView> findStatusesByCustomerIdIn(@Param("customerIds") Collection<Long> customerIds);
+
+    @Query("SELECT c.customerId AS customerId, c.status AS status FROM Customer c WHERE c.statusSyncPending = true " +
+           "ORDER BY c.customerId")
+    List<StatusView> findStatusSyncPending(Pageable pageable);
+
+    // Only clears the flag if the status is still the one that was synced
+    @Transactional
+    @Modifying
+    @Query("UPDATE Customer c SET c.statusSyncPending = false WHERE c.customerId = :customerId AND c.status = :status")
+    int clearStatusSyncPending(@Param("customerId") Long customerId, @Param("status") Customer.CustomerStatus status);
+
+    // First page of a listing; the sort comes in with the Pageable
+    List<Customer> findByStatusIn(Collection<Customer.CustomerStatus> statuses, Pageable pageable);
+
+    // Keyset continuations: rows strictly after the (name, customerId) of the previous page's last row
+    @Query("SELECT c FROM Customer c WHERE c.status IN :statuses AND c.customerId > :cursorId " +
+           "ORDER BY c.customerId ASC")
+    List<Customer> findByStatusInAfterIdAsc(@Param("statuses") Collection<Customer.CustomerStatus> statuses,
+                                            @Param("cursorId") Long cursorId,
+                                            Pageable pageable);
+
+    @Query("SELECT c FROM Customer c WHERE c.status IN :statuses AND c.customerId < :cursorId " +
+           "ORDER BY c.customerId DESC")
+    List<Customer> findByStatusInAfterIdDesc(@Param("statuses") Collection<Customer.CustomerStatus> statuses,
+                                             @Param("cursorId") Long cursorId,
+                                             Pageable pageable);
+
+    @Query("SELECT c FROM Customer c WHERE c.status IN :statuses " +
+           "AND (c.name > :cursorName OR (c.name = :cursorName AND c.customerId > :cursorId)) " +
+           "ORDER BY c.name ASC, c.customerId ASC")
+    List<Customer> findByStatusInAfterNameAsc(@Param("statuses") Collection<Customer.CustomerStatus> statuses,
+                                              @Param("cursorName") String cursorName,
+                                              @Param("cursorId") Long cursorId,
+                                              Pageable pageable);
+
+    @Query("SELECT c FROM Customer c WHERE c.status IN :statuses " +
+           "AND (c.name < :cursorName OR (c.name = :cursorName AND c.customerId < :cursorId)) " +
+           "ORDER BY c.name DESC, c.customerId DESC")
+    List<Customer> findByStatusInAfterNameDesc(@Param("statuses") Collection<Customer.CustomerStatus> statuses,
+                                               @Param("cursorName") String cursorName,
+                                               @Param("cursorId") Long cursorId,
+                                               Pageable pageable);
+
+    // Read through a server-side cursor; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT c FROM Customer c WHERE c.status IN :statuses ORDER BY c.customerId ASC")
+    Stream<Customer> streamByStatusIn(@Param("statuses") Collection<Customer.CustomerStatus> statuses);
+
+    interface StatusView {
+        Long getCustomerId();
+        Customer.CustomerStatus getStatus();
+    }
 }
@@ -1,56 +1,36 @@
 package com.bank.customer.security;
 
+import com.bank.security.BankHttpSecurity;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
-import org.springframework.web.cors.CorsConfiguration;
-import org.springframework.web.cors.CorsConfigurationSource;
-import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
-
-import java.util.List;
 
 @Configuration
 @EnableWebSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
-    private final JwtAuthFilter jwtAuthFilter;
+    private final BankHttpSecurity bankHttpSecurity;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        http
-            .cors(cors -> cors.configurationSource(corsConfigurationSource()))
-            .csrf(csrf -> csrf.disable())
-            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        bankHttpSecurity.apply(http)
             .authorizeHttpRequests(auth -> auth
+                .requestMatchers(HttpMethod.GET, "/customers/page", "/customers/export").hasRole("ADMIN")  // Admin listing and export
                 .requestMatchers(HttpMethod.GET, "/customers/user/**").permitAll()  // Internal service calls
                 .requestMatchers(HttpMethod.GET, "/customers/{id}").permitAll()  // Internal service calls (account validation)
+                .requestMatchers(HttpMethod.POST, "/customers/batch-status").hasAnyRole("SERVICE", "ADMIN")  // Internal status checks
                 .requestMatchers(HttpMethod.POST, "/customers").permitAll()  // Registration creates customer
                 .requestMatchers(HttpMethod.GET, "/customers/**").hasAnyRole("USER", "ADMIN")
                 .requestMatchers(HttpMethod.PUT, "/customers/**").hasRole("ADMIN")
-                .requestMatchers(HttpMethod.DELETE, "/customers/**").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.DELETE, "/customers/**").hasAnyRole("SERVICE", "ADMIN")  // Registration compensation soft-deletes
                 .anyRequest().authenticated()
-            )
-            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+            );
 
         return http.build();
     }
-
-    @Bean
-    public CorsConfigurationSource corsConfigurationSource() {
-        CorsConfiguration config = new CorsConfiguration();
-        config.setAllowedOrigins(List.of("http://localhost:3000"));
-        config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        config.setAllowedHeaders(List.of("*"));
-        config.setAllowCredentials(true);
-        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
-        source.registerCorsConfiguration("/**", config);
-        return source;
-    }
 }
@@ -0,0 +1,42 @@
+package com.bank.customer.service;
+
+import com.bank.customer.entity.Customer;
+import com.bank.customer.repository.CustomerRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class CustomerExportService {
+    private final CustomerRepository customerRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    // Rows come off a JDBC cursor and are detached once written, so heap use does not grow with table size
+    @Transactional(readOnly = true)
+    public void writeCustomers(Customer.CustomerStatus status, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<Customer> rows = customerRepository.streamByStatusIn(CustomerService.statuses(status))) {
+            Iterator<Customer> it = rows.iterator();
+            while (it.hasNext()) {
+                Customer customer = it.next();
+                writer.write(objectMapper.writeValueAsString(customer));
+                writer.write('\n');
+                entityManager.detach(customer);
+            }
+        }
+        writer.flush();
+    }
+}
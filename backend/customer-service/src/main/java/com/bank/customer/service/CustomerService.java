@@ -1,20 +1,35 @@
 package com.bank.customer.service;
 
+import com.bank.customer.dto.CustomerPage;
 import com.bank.customer.entity.Customer;
 import com.bank.customer.exception.CustomerNotFoundException;
 import com.bank.customer.exception.DuplicateEmailException;
 import com.bank.customer.repository.CustomerRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class CustomerService {
     private final CustomerRepository customerRepository;
+    private final CustomerStatusNotifier customerStatusNotifier;
+
+    @Value("${customer.list.max-page-size:200}")
+    private int maxPageSize;
 
     public Customer createCustomer(Customer customer) {
         if (customerRepository.existsByEmail(customer.getEmail())) {
@@ -34,6 +49,100 @@ public class CustomerService {
         return customerRepository.findAll();
     }
 
+    /**
+     * Status of each known customer id, read with a projection query; unknown ids are absent from the map.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Customer.CustomerStatus> getCustomerStatuses(Collection<Long> customerIds) {
+        Map<Long, Customer.CustomerStatus> statuses = new HashMap<>();
+        for (CustomerRepository.StatusView view : customerRepository.findStatusesByCustomerIdIn(customerIds)) {
+            statuses.put(view.getCustomerId(), view.getStatus());
+        }
+        return statuses;
+    }
+
+    /**
+     * Keyset-paginated listing sorted by customerId or name; pass the returned nextCursor to continue.
+     */
+    @Transactional(readOnly = true)
+    public CustomerPage getCustomerPage(Customer.CustomerStatus status, String sort, String direction,
+                                        String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        boolean byName = parseSortByName(sort);
+        boolean descending = parseDescending(direction);
+        Collection<Customer.CustomerStatus> statuses = statuses(status);
+
+        // Fetch one extra row to know whether another page exists
+        List<Customer> rows;
+        if (cursor == null || cursor.isBlank()) {
+            Sort.Direction dir = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+            Sort order = byName ? Sort.by(dir, "name", "customerId") : Sort.by(dir, "customerId");
+            rows = customerRepository.findByStatusIn(statuses, PageRequest.of(0, pageSize + 1, order));
+        } else {
+            String[] parts = decodeCursor(cursor);
+            Long cursorId = Long.parseLong(parts[0]);
+            String cursorName = parts[1];
+            PageRequest limit = PageRequest.of(0, pageSize + 1);
+            if (byName) {
+                rows = descending
+                        ? customerRepository.findByStatusInAfterNameDesc(statuses, cursorName, cursorId, limit)
+                        : customerRepository.findByStatusInAfterNameAsc(statuses, cursorName, cursorId, limit);
+            } else {
+                rows = descending
+                        ? customerRepository.findByStatusInAfterIdDesc(statuses, cursorId, limit)
+                        : customerRepository.findByStatusInAfterIdAsc(statuses, cursorId, limit);
+            }
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Customer> page = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+        return new CustomerPage(page, nextCursor, hasMore);
+    }
+
+    static Collection<Customer.CustomerStatus> statuses(Customer.CustomerStatus status) {
+        return status != null ? List.of(status) : EnumSet.allOf(Customer.CustomerStatus.class);
+    }
+
+    private boolean parseSortByName(String sort) {
+        if (sort == null || sort.equals("customerId")) {
+            return false;
+        }
+        if (sort.equals("name")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Invalid sort. Must be customerId or name");
+    }
+
+    private boolean parseDescending(String direction) {
+        if (direction == null || direction.equalsIgnoreCase("asc")) {
+            return false;
+        }
+        if (direction.equalsIgnoreCase("desc")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Invalid direction. Must be asc or desc");
+    }
+
+    // Id first: names may contain the separator
+    private String encodeCursor(Customer last) {
+        String raw = last.getCustomerId() + "|" + last.getName();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            Long.parseLong(parts[0]);
+            if (parts.length < 2) {
+                throw new IllegalArgumentException();
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
     public Customer updateCustomer(Long id, Customer customerDetails) {
         Customer customer = getCustomerById(id);
         if (!customer.getEmail().equals(customerDetails.getEmail()) 
@@ -56,7 +165,9 @@ public class CustomerService {
         // Soft delete - set status to INACTIVE
         Customer customer = getCustomerById(id);
         customer.setStatus(Customer.CustomerStatus.INACTIVE);
+        customer.setStatusSyncPending(true);
         customerRepository.save(customer);
+        customerStatusNotifier.customerStatusChanged(id, Customer.CustomerStatus.INACTIVE);
     }
 
     public Customer updateCustomerStatus(Long id, String status) {
@@ -66,7 +177,10 @@ public class CustomerService {
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid status. Must be ACTIVE, INACTIVE, or SUSPENDED");
         }
-        return customerRepository.save(customer);
+        customer.setStatusSyncPending(true);
+        Customer saved = customerRepository.save(customer);
+        customerStatusNotifier.customerStatusChanged(id, saved.getStatus());
+        return saved;
     }
 
     @Transactional(readOnly = true)
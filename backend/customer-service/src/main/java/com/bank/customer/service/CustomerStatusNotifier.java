@@ -0,0 +1,88 @@
+package com.bank.customer.service;
+
+import com.bank.customer.entity.Customer;
+import com.bank.customer.repository.CustomerRepository;
+import com.bank.security.InstanceBroadcaster;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Propagates customer status changes once they are committed. account-service keeps a copy of the status on
+ * every account; the customer row stays flagged until it has acknowledged the change, and flagged rows are
+ * resent on a schedule, so a failed call delays the sync instead of losing it. No remote call runs inside
+ * the caller's transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerStatusNotifier {
+    private static final String TRANSACTION_SERVICE = "transaction-service";
+
+    private final WebClient accountServiceWebClient;
+    private final InstanceBroadcaster instanceBroadcaster;
+    private final CustomerRepository customerRepository;
+
+    @Value("${customer.status-sync.retry-batch-size:100}")
+    private int retryBatchSize;
+
+    public void customerStatusChanged(Long customerId, Customer.CustomerStatus status) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    propagate(customerId, status);
+                }
+            });
+        } else {
+            propagate(customerId, status);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${customer.status-sync.retry-interval:PT30S}")
+    public void resendPending() {
+        for (CustomerRepository.StatusView pending : customerRepository.findStatusSyncPending(PageRequest.of(0, retryBatchSize))) {
+            try {
+                syncAccountService(pending.getCustomerId(), pending.getStatus()).block();
+            } catch (RuntimeException e) {
+                log.warn("Customer {} status still not synced to account service: {}", pending.getCustomerId(), e.getMessage());
+            }
+        }
+    }
+
+    private void propagate(Long customerId, Customer.CustomerStatus status) {
+        syncAccountService(customerId, status)
+                .subscribe(done -> { },
+                        e -> log.warn("Customer {} status sync to account service failed; will retry", customerId, e));
+        // transaction-service caches customer status per instance; best effort, the cache TTL bounds staleness
+        instanceBroadcaster.post(TRANSACTION_SERVICE, "/transactions/status-cache/invalidate",
+                Map.of("customerIds", List.of(customerId)));
+    }
+
+    private Mono<Integer> syncAccountService(Long customerId, Customer.CustomerStatus status) {
+        return accountServiceWebClient.put()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/accounts/customer/{customerId}/customer-status")
+                        .queryParam("status", status.name())
+                        .build(customerId))
+                .retrieve()
+                .onStatus(HttpStatusCode::isError,
+                    response -> Mono.error(new RuntimeException("Failed to sync customer status to account service")))
+                .toBodilessEntity()
+                // Off the client's event loop before touching the database
+                .publishOn(Schedulers.boundedElastic())
+                .map(response -> customerRepository.clearStatusSyncPending(customerId, status));
+    }
+}
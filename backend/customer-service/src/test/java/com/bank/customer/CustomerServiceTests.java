@@ -1,16 +1,27 @@
 package com.bank.customer;
 
+import com.bank.customer.dto.CustomerPage;
 import com.bank.customer.entity.Customer;
 import com.bank.customer.repository.CustomerRepository;
+import com.bank.customer.service.CustomerExportService;
 import com.bank.customer.service.CustomerService;
+import com.bank.customer.service.CustomerStatusNotifier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
 
 @SpringBootTest
 class CustomerServiceTests {
@@ -21,6 +32,12 @@ class CustomerServiceTests {
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private CustomerExportService customerExportService;
+
+    @MockBean
+    private CustomerStatusNotifier customerStatusNotifier;
+
     private Customer testCustomer;
 
     @BeforeEach
@@ -81,6 +98,9 @@ class CustomerServiceTests {
         Customer updated = customerService.updateCustomerStatus(saved.getCustomerId(), "SUSPENDED");
         
         assertEquals(Customer.CustomerStatus.SUSPENDED, updated.getStatus());
+        // Flagged until account-service acknowledges the change after commit
+        assertTrue(customerRepository.findById(saved.getCustomerId()).orElseThrow().isStatusSyncPending());
+        verify(customerStatusNotifier).customerStatusChanged(saved.getCustomerId(), Customer.CustomerStatus.SUSPENDED);
     }
 
     @Test
@@ -100,6 +120,8 @@ class CustomerServiceTests {
         
         Customer deleted = customerRepository.findById(saved.getCustomerId()).orElseThrow();
         assertEquals(Customer.CustomerStatus.INACTIVE, deleted.getStatus());
+        assertTrue(deleted.isStatusSyncPending());
+        verify(customerStatusNotifier).customerStatusChanged(saved.getCustomerId(), Customer.CustomerStatus.INACTIVE);
     }
 
     @Test
@@ -111,4 +133,82 @@ class CustomerServiceTests {
         assertNotNull(found);
         assertEquals("junit_test@example.com", found.getEmail());
     }
+
+    @Test
+    void shouldPageCustomersByKeysetWithStatusFilter() throws Exception {
+        List<Long> suspendedIds = new ArrayList<>();
+        List<String> names = List.of("Zed", "Amy|Pipe", "Bob", "Bob", "Carl");
+        for (int i = 0; i < names.size(); i++) {
+            Customer customer = customerRepository.save(Customer.builder()
+                    .name(names.get(i))
+                    .email("page_test_" + i + "_" + System.nanoTime() + "@example.com")
+                    .phone("555-0100")
+                    .address("1 Page Street")
+                    .status(Customer.CustomerStatus.SUSPENDED)
+                    .build());
+            suspendedIds.add(customer.getCustomerId());
+        }
+
+        for (String direction : List.of("asc", "desc")) {
+            for (String sort : List.of("customerId", "name")) {
+                List<Customer> seen = new ArrayList<>();
+                String cursor = null;
+                do {
+                    CustomerPage page = customerService.getCustomerPage(
+                            Customer.CustomerStatus.SUSPENDED, sort, direction, cursor, 2);
+                    assertTrue(page.getCustomers().size() <= 2);
+                    seen.addAll(page.getCustomers());
+                    cursor = page.getNextCursor();
+                    assertEquals(cursor != null, page.isHasMore());
+                } while (cursor != null);
+
+                assertTrue(seen.stream().allMatch(c -> c.getStatus() == Customer.CustomerStatus.SUSPENDED));
+                List<Long> ids = seen.stream().map(Customer::getCustomerId).toList();
+                assertEquals(ids.size(), Set.copyOf(ids).size());
+                assertTrue(ids.containsAll(suspendedIds));
+
+                Comparator<Customer> order = sort.equals("name")
+                        ? Comparator.comparing(Customer::getName).thenComparing(Customer::getCustomerId)
+                        : Comparator.comparing(Customer::getCustomerId);
+                List<Customer> sorted = new ArrayList<>(seen);
+                sorted.sort(direction.equals("asc") ? order : order.reversed());
+                assertEquals(sorted, seen);
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                () -> customerService.getCustomerPage(null, "email", "asc", null, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> customerService.getCustomerPage(null, "name", "sideways", null, 10));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        customerExportService.writeCustomers(Customer.CustomerStatus.SUSPENDED, out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertTrue(lines.length >= suspendedIds.size());
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"status\":\"SUSPENDED\""));
+    }
+
+    @Test
+    void shouldReturnStatusesForKnownCustomerIds() {
+        Customer active = customerRepository.save(Customer.builder()
+                .name("Status Active")
+                .email("status_active_" + System.nanoTime() + "@example.com")
+                .phone("555-0200")
+                .address("2 Status Road")
+                .build());
+        Customer suspended = customerRepository.save(Customer.builder()
+                .name("Status Suspended")
+                .email("status_suspended_" + System.nanoTime() + "@example.com")
+                .phone("555-0201")
+                .address("2 Status Road")
+                .status(Customer.CustomerStatus.SUSPENDED)
+                .build());
+
+        Map<Long, Customer.CustomerStatus> statuses = customerService.getCustomerStatuses(
+                Set.of(active.getCustomerId(), suspended.getCustomerId(), -1L));
+
+        assertEquals(Map.of(
+                active.getCustomerId(), Customer.CustomerStatus.ACTIVE,
+                suspended.getCustomerId(), Customer.CustomerStatus.SUSPENDED), statuses);
+    }
 }
@@ -1,5 +1,6 @@
 package com.bank.transaction.config;
 
+import com.bank.security.ServiceIdentity;
 import io.micrometer.observation.ObservationRegistry;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
@@ -12,10 +13,11 @@ public class WebClientConfig {
 
     @Bean
     @LoadBalanced
-    public WebClient.Builder webClientBuilder(ObservationRegistry observationRegistry) {
+    public WebClient.Builder webClientBuilder(ObservationRegistry observationRegistry, ServiceIdentity serviceIdentity) {
         return WebClient.builder()
                 .observationRegistry(observationRegistry)
-                .observationConvention(new DefaultClientRequestObservationConvention());
+                .observationConvention(new DefaultClientRequestObservationConvention())
+                .filter(serviceIdentity);
     }
 
     @Bean
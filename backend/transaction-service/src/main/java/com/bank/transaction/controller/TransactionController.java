@@ -1,48 +1,173 @@
 package com.bank.transaction.controller;
 
+import com.bank.transaction.dto.BatchTransactionRequest;
+import com.bank.transaction.dto.BatchTransactionResponse;
 import com.bank.transaction.dto.DepositRequest;
+import com.bank.transaction.dto.LedgerBalance;
+import com.bank.transaction.dto.StatusChangeNotification;
+import com.bank.transaction.dto.TransactionPage;
 import com.bank.transaction.dto.TransferByAccountNumberRequest;
 import com.bank.transaction.dto.TransferRequest;
 import com.bank.transaction.dto.WithdrawRequest;
 import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.service.BalanceSnapshotService;
+import com.bank.transaction.service.IdempotencyService;
+import com.bank.transaction.service.StatementService;
+import com.bank.transaction.service.StatusCache;
 import com.bank.transaction.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/transactions")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
 public class TransactionController {
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final TransactionService transactionService;
+    private final StatementService statementService;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final IdempotencyService idempotencyService;
+    private final StatusCache statusCache;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/deposit")
-    public ResponseEntity<Transaction> deposit(@Valid @RequestBody DepositRequest request) {
-        return new ResponseEntity<>(transactionService.deposit(request), HttpStatus.CREATED);
+    public ResponseEntity<Transaction> deposit(@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                               @Valid @RequestBody DepositRequest request) {
+        return new ResponseEntity<>(idempotencyService.execute(idempotencyKey, "deposit", request,
+                scopedKey -> transactionService.deposit(request, scopedKey)),
+                HttpStatus.CREATED);
     }
 
     @PostMapping("/withdraw")
-    public ResponseEntity<Transaction> withdraw(@Valid @RequestBody WithdrawRequest request) {
-        return new ResponseEntity<>(transactionService.withdraw(request), HttpStatus.CREATED);
+    public ResponseEntity<Transaction> withdraw(@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                @Valid @RequestBody WithdrawRequest request) {
+        return new ResponseEntity<>(idempotencyService.execute(idempotencyKey, "withdraw", request,
+                scopedKey -> transactionService.withdraw(request, scopedKey)),
+                HttpStatus.CREATED);
     }
 
     @PostMapping("/transfer")
-    public ResponseEntity<Transaction> transfer(@Valid @RequestBody TransferRequest request) {
-        return new ResponseEntity<>(transactionService.transfer(request), HttpStatus.CREATED);
+    public ResponseEntity<Transaction> transfer(@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                @Valid @RequestBody TransferRequest request) {
+        return new ResponseEntity<>(idempotencyService.execute(idempotencyKey, "transfer", request,
+                scopedKey -> transactionService.transfer(request, scopedKey)),
+                HttpStatus.CREATED);
     }
 
     @PostMapping("/transfer-by-account")
-    public ResponseEntity<Transaction> transferByAccountNumber(@Valid @RequestBody TransferByAccountNumberRequest request) {
-        return new ResponseEntity<>(transactionService.transferByAccountNumber(request), HttpStatus.CREATED);
+    public ResponseEntity<Transaction> transferByAccountNumber(@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                               @Valid @RequestBody TransferByAccountNumberRequest request) {
+        return new ResponseEntity<>(idempotencyService.execute(idempotencyKey, "transfer-by-account", request,
+                scopedKey -> transactionService.transferByAccountNumber(request, scopedKey)),
+                HttpStatus.CREATED);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransactionResponse> processBatch(@Valid @RequestBody BatchTransactionRequest request) {
+        return ResponseEntity.ok(transactionService.processBatch(request.getLegs(), progress -> { }));
+    }
+
+    @PostMapping(value = "/batch", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamBatch(@Valid @RequestBody BatchTransactionRequest request) {
+        // One line per processed chunk so clients can follow progress of very large batches
+        StreamingResponseBody body = out -> transactionService.processBatch(request.getLegs(), progress -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(progress));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
     }
 
     @GetMapping("/account/{accountId}")
     public ResponseEntity<List<Transaction>> getTransactionsByAccountId(@PathVariable Long accountId) {
         return ResponseEntity.ok(transactionService.getTransactionsByAccountId(accountId));
     }
+
+    @GetMapping("/account/{accountId}/page")
+    public ResponseEntity<TransactionPage> getTransactionPage(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Transaction.TransactionType type) {
+        return ResponseEntity.ok(transactionService.getTransactionPage(accountId, cursor, size, from, to, type));
+    }
+
+    @GetMapping("/account/{accountId}/statement")
+    public ResponseEntity<StreamingResponseBody> exportStatement(
+            @PathVariable Long accountId,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        StatementService.StatementFormat statementFormat = StatementService.parseFormat(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String extension = statementFormat == StatementService.StatementFormat.CSV ? "csv" : "ndjson";
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            statementService.writeStatement(accountId, from, to, statementFormat, target);
+            if (target instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header("X-Opening-Balance", balanceSnapshotService
+                        .balanceAsOf(accountId, from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0))
+                        .getBalance().toPlainString())
+                .contentType(statementFormat == StatementService.StatementFormat.CSV
+                        ? MediaType.parseMediaType("text/csv") : MediaType.parseMediaType(NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"statement-" + accountId + "." + extension + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @GetMapping("/account/{accountId}/balance")
+    public ResponseEntity<LedgerBalance> getBalanceAsOf(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        return ResponseEntity.ok(balanceSnapshotService.balanceAsOf(accountId, asOf != null ? asOf : LocalDateTime.now()));
+    }
+
+    @PostMapping("/account/{accountId}/snapshots/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildSnapshots(@PathVariable Long accountId) {
+        return ResponseEntity.ok(Map.of("accountId", accountId, "days", balanceSnapshotService.rebuild(accountId)));
+    }
+
+    // Sent by account-service and customer-service to every instance when a status changes
+    @PostMapping("/status-cache/invalidate")
+    public ResponseEntity<Void> invalidateStatusCache(@RequestBody StatusChangeNotification notification) {
+        statusCache.invalidate(
+                notification.getAccountIds() != null ? notification.getAccountIds() : List.of(),
+                notification.getCustomerIds() != null ? notification.getCustomerIds() : List.of());
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -16,4 +16,5 @@ public class AccountDto {
     private String accountType;
     private BigDecimal balance;
     private String status;
+    private String customerStatus;
 }
@@ -0,0 +1,28 @@
+package com.bank.transaction.dto;
+
+import com.bank.transaction.entity.Transaction.TransactionType;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchLeg {
+    @NotNull(message = "Transaction type is required")
+    private TransactionType transactionType;
+
+    private Long fromAccountId;
+
+    private Long toAccountId;
+
+    @NotNull(message = "Amount is required")
+    @Positive(message = "Amount must be positive")
+    private BigDecimal amount;
+
+    private String description;
+}
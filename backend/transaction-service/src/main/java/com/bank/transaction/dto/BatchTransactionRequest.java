@@ -0,0 +1,19 @@
+package com.bank.transaction.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransactionRequest {
+    @NotEmpty(message = "At least one leg is required")
+    @Size(max = 10000, message = "A batch can have at most 10000 legs")
+    private List<@Valid BatchLeg> legs;
+}
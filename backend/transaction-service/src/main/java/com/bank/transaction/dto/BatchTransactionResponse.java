@@ -0,0 +1,18 @@
+package com.bank.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransactionResponse {
+    private int total;
+    private int processed;
+    private int applied;
+    private int rejected;
+    private List<BatchLegResult> results;
+}
@@ -0,0 +1,18 @@
+package com.bank.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerBalance {
+    private Long accountId;
+    private LocalDateTime asOf;
+    // Net of recorded transactions; balances set when the account was opened are not transactions
+    private BigDecimal balance;
+}
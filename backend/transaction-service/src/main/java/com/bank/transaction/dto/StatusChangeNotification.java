@@ -0,0 +1,15 @@
+package com.bank.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusChangeNotification {
+    private Set<Long> accountIds;
+    private Set<Long> customerIds;
+}
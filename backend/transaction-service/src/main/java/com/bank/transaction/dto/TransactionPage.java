@@ -0,0 +1,17 @@
+package com.bank.transaction.dto;
+
+import com.bank.transaction.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPage {
+    private List<Transaction> transactions;
+    private String nextCursor;
+    private boolean hasMore;
+}
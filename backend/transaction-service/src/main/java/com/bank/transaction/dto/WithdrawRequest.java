@@ -24,6 +24,8 @@ public class WithdrawRequest {
     @NotNull(message = "Username is required")
     private String username;
 
-    @NotNull(message = "PIN is required")
+    // Either pin or a pinGrant from /auth/validate-pin is required
     private String pin;
+
+    private String pinGrant;
 }
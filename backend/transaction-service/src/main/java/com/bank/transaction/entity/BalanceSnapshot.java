@@ -0,0 +1,36 @@
+package com.bank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "balance_snapshots", uniqueConstraints =
+        @UniqueConstraint(name = "uk_balance_snapshots_account_date", columnNames = {"account_id", "snapshot_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long snapshotId;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private LocalDate snapshotDate;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal credits;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal debits;
+
+    // Net of every recorded transaction for the account up to the end of snapshotDate
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal closingBalance;
+}
@@ -0,0 +1,41 @@
+package com.bank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys", indexes =
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+    // SHA-256 of (principal, endpoint, client key), so one caller's key never matches another's request
+    @Id
+    @Column(length = 64)
+    private String idempotencyKey;
+
+    // SHA-256 of the request body the key was first used with
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    // Set once the request completed
+    private Long transactionId;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED,
+        // The request failed after account-service may already have moved money; never run it again
+        OUTCOME_UNKNOWN
+    }
+}
@@ -0,0 +1,47 @@
+package com.bank.transaction.entity;
+
+import com.bank.transaction.entity.Transaction.TransactionType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A batch leg written before account-service is asked to apply its chunk. The rows of a chunk are removed
+ * together with the insert of its transactions; rows that outlive that were applied (or not) with no
+ * transaction recorded and need reconciliation.
+ */
+@Entity
+@Table(name = "pending_batch_legs", indexes = {
+        @Index(name = "idx_pending_batch_legs_chunk", columnList = "chunk_id"),
+        @Index(name = "idx_pending_batch_legs_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PendingBatchLeg {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String chunkId;
+
+    private Long fromAccountId;
+
+    private Long toAccountId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionType transactionType;
+
+    private String description;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,30 @@
+package com.bank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Uses left on a PIN grant, shared by every transaction-service replica so a grant's use limit holds
+ * cluster-wide. Created on the grant's first use and purged once the grant has expired.
+ */
+@Entity
+@Table(name = "pin_grant_uses", indexes =
+        @Index(name = "idx_pin_grant_uses_expires_at", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PinGrantUse {
+    // The grant's jti
+    @Id
+    @Column(length = 36)
+    private String grantId;
+
+    @Column(nullable = false)
+    private int remaining;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,24 @@
+package com.bank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An account whose balance snapshots missed an update. Until the scheduled rebuild clears it, as-of
+ * balances for the account are computed from the full transaction history instead of the snapshots.
+ */
+@Entity
+@Table(name = "balance_snapshot_repairs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SnapshotRepair {
+    @Id
+    private Long accountId;
+
+    @Column(nullable = false)
+    private LocalDateTime markedAt;
+}
@@ -1,5 +1,6 @@
 package com.bank.transaction.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -7,7 +8,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_from_account_ts", columnList = "from_account_id, timestamp"),
+        @Index(name = "idx_transactions_to_account_ts", columnList = "to_account_id, timestamp")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -33,6 +37,11 @@ public class Transaction {
 
     private String description;
 
+    // Scoped Idempotency-Key of the request that created this row, if any
+    @JsonIgnore
+    @Column(length = 64, unique = true)
+    private String idempotencyKey;
+
     @PrePersist
     protected void onCreate() {
         timestamp = LocalDateTime.now();
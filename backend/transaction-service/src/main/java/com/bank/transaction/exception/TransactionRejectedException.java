@@ -0,0 +1,10 @@
+package com.bank.transaction.exception;
+
+/**
+ * A transaction refused before any balance changed, e.g. a frozen account or a debit account-service declined.
+ */
+public class TransactionRejectedException extends RuntimeException {
+    public TransactionRejectedException(String message) {
+        super(message);
+    }
+}
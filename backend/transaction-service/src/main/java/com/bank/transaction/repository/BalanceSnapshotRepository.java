@@ -0,0 +1,35 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.entity.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    Optional<BalanceSnapshot> findTopByAccountIdAndSnapshotDateLessThanOrderBySnapshotDateDesc(Long accountId, LocalDate date);
+
+    @Modifying
+    @Query("UPDATE BalanceSnapshot s SET s.credits = s.credits + :credits, s.debits = s.debits + :debits, " +
+           "s.closingBalance = s.closingBalance + :credits - :debits " +
+           "WHERE s.accountId = :accountId AND s.snapshotDate = :date")
+    int addToDay(@Param("accountId") Long accountId, @Param("date") LocalDate date,
+                 @Param("credits") BigDecimal credits, @Param("debits") BigDecimal debits);
+
+    // Keeps later checkpoints right when a transaction lands on an earlier day
+    @Modifying
+    @Query("UPDATE BalanceSnapshot s SET s.closingBalance = s.closingBalance + :net " +
+           "WHERE s.accountId = :accountId AND s.snapshotDate > :date")
+    int shiftLaterDays(@Param("accountId") Long accountId, @Param("date") LocalDate date, @Param("net") BigDecimal net);
+
+    @Modifying
+    @Query("DELETE FROM BalanceSnapshot s WHERE s.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
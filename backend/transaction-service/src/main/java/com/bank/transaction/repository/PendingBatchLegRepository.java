@@ -0,0 +1,20 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.entity.PendingBatchLeg;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface PendingBatchLegRepository extends JpaRepository<PendingBatchLeg, Long> {
+
+    long countByCreatedAtBefore(LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM PendingBatchLeg p WHERE p.chunkId = :chunkId")
+    int deleteByChunkId(@Param("chunkId") String chunkId);
+}
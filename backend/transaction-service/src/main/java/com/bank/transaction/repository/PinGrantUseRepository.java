@@ -0,0 +1,23 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.entity.PinGrantUse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface PinGrantUseRepository extends JpaRepository<PinGrantUse, String> {
+
+    // Conditional decrement: 1 when a use was taken, 0 when none are left or the grant was never used
+    @Modifying
+    @Query("UPDATE PinGrantUse u SET u.remaining = u.remaining - 1 WHERE u.grantId = :grantId AND u.remaining > 0")
+    int takeUse(@Param("grantId") String grantId);
+
+    @Modifying
+    @Query("DELETE FROM PinGrantUse u WHERE u.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,28 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.entity.SnapshotRepair;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SnapshotRepairRepository extends JpaRepository<SnapshotRepair, Long> {
+
+    @Query("SELECT r.accountId FROM SnapshotRepair r ORDER BY r.markedAt")
+    List<Long> findAccountIds(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE SnapshotRepair r SET r.markedAt = :markedAt WHERE r.accountId = :accountId")
+    int remark(@Param("accountId") Long accountId, @Param("markedAt") LocalDateTime markedAt);
+
+    // A mark made after the rebuild started may cover a write the rebuild did not see, so it stays
+    @Modifying
+    @Query("DELETE FROM SnapshotRepair r WHERE r.accountId = :accountId AND r.markedAt < :rebuildStarted")
+    int clear(@Param("accountId") Long accountId, @Param("rebuildStarted") LocalDateTime rebuildStarted);
+}
@@ -0,0 +1,63 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class TransactionBatchWriter {
+    private static final String INSERT_SQL = "INSERT INTO transactions "
+            + "(from_account_id, to_account_id, amount, transaction_type, timestamp, description) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PENDING_SQL = "INSERT INTO pending_batch_legs "
+            + "(chunk_id, from_account_id, to_account_id, amount, transaction_type, description, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${transaction.batch.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    // JPA cannot batch IDENTITY inserts, so bulk rows go straight through JDBC. Rows without a timestamp are
+    // stamped in place, so callers see the time that was stored
+    @Transactional
+    public void insertAll(List<Transaction> transactions) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Transaction t : transactions) {
+            if (t.getTimestamp() == null) {
+                t.setTimestamp(now);
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, transactions, jdbcBatchSize, (ps, t) -> {
+            ps.setObject(1, t.getFromAccountId(), Types.BIGINT);
+            ps.setObject(2, t.getToAccountId(), Types.BIGINT);
+            ps.setBigDecimal(3, t.getAmount());
+            ps.setString(4, t.getTransactionType().name());
+            ps.setTimestamp(5, Timestamp.valueOf(t.getTimestamp()));
+            ps.setString(6, t.getDescription());
+        });
+    }
+
+    @Transactional
+    public void insertPending(String chunkId, List<Transaction> transactions) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_PENDING_SQL, transactions, jdbcBatchSize, (ps, t) -> {
+            ps.setString(1, chunkId);
+            ps.setObject(2, t.getFromAccountId(), Types.BIGINT);
+            ps.setObject(3, t.getToAccountId(), Types.BIGINT);
+            ps.setBigDecimal(4, t.getAmount());
+            ps.setString(5, t.getTransactionType().name());
+            ps.setString(6, t.getDescription());
+            ps.setTimestamp(7, now);
+        });
+    }
+}
@@ -1,19 +1,80 @@
 package com.bank.transaction.repository;
 
 import com.bank.transaction.entity.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     
+    @Query("SELECT t.transactionId FROM Transaction t WHERE t.idempotencyKey = :idempotencyKey")
+    Optional<Long> findIdByIdempotencyKey(@Param("idempotencyKey") String idempotencyKey);
+    
     @Query("SELECT t FROM Transaction t WHERE t.fromAccountId = :accountId OR t.toAccountId = :accountId ORDER BY t.timestamp DESC")
     List<Transaction> findByAccountId(@Param("accountId") Long accountId);
     
+    // Keyset pages: one query per side so each can walk its (account_id, timestamp) index
+    @Query("SELECT t FROM Transaction t WHERE t.fromAccountId = :accountId " +
+           "AND (t.timestamp < :cursorTime OR (t.timestamp = :cursorTime AND t.transactionId < :cursorId)) " +
+           "AND t.timestamp >= :fromTime AND t.timestamp < :toTime AND t.transactionType IN :types " +
+           "ORDER BY t.timestamp DESC, t.transactionId DESC")
+    List<Transaction> findOutgoingPage(@Param("accountId") Long accountId,
+                                       @Param("cursorTime") LocalDateTime cursorTime,
+                                       @Param("cursorId") Long cursorId,
+                                       @Param("fromTime") LocalDateTime fromTime,
+                                       @Param("toTime") LocalDateTime toTime,
+                                       @Param("types") Collection<Transaction.TransactionType> types,
+                                       Pageable pageable);
+
+    @Query("SELECT t FROM Transaction t WHERE t.toAccountId = :accountId " +
+           "AND (t.timestamp < :cursorTime OR (t.timestamp = :cursorTime AND t.transactionId < :cursorId)) " +
+           "AND t.timestamp >= :fromTime AND t.timestamp < :toTime AND t.transactionType IN :types " +
+           "ORDER BY t.timestamp DESC, t.transactionId DESC")
+    List<Transaction> findIncomingPage(@Param("accountId") Long accountId,
+                                       @Param("cursorTime") LocalDateTime cursorTime,
+                                       @Param("cursorId") Long cursorId,
+                                       @Param("fromTime") LocalDateTime fromTime,
+                                       @Param("toTime") LocalDateTime toTime,
+                                       @Param("types") Collection<Transaction.TransactionType> types,
+                                       Pageable pageable);
+
+    // Oldest first, read through a server-side cursor; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT t FROM Transaction t WHERE (t.fromAccountId = :accountId OR t.toAccountId = :accountId) " +
+           "AND t.timestamp >= :fromTime AND t.timestamp < :toTime " +
+           "ORDER BY t.timestamp ASC, t.transactionId ASC")
+    Stream<Transaction> streamStatement(@Param("accountId") Long accountId,
+                                        @Param("fromTime") LocalDateTime fromTime,
+                                        @Param("toTime") LocalDateTime toTime);
+
+    @Query("SELECT COALESCE(SUM(CASE WHEN t.toAccountId = :accountId THEN t.amount ELSE -t.amount END), 0) " +
+           "FROM Transaction t WHERE (t.fromAccountId = :accountId OR t.toAccountId = :accountId) " +
+           "AND t.timestamp >= :fromTime AND t.timestamp < :toTime")
+    BigDecimal sumNetMovement(@Param("accountId") Long accountId,
+                              @Param("fromTime") LocalDateTime fromTime,
+                              @Param("toTime") LocalDateTime toTime);
+
+    @Query("SELECT COUNT(t) > 0 FROM Transaction t WHERE (t.fromAccountId = :accountId OR t.toAccountId = :accountId) " +
+           "AND t.timestamp < :before")
+    boolean existsByAccountIdBefore(@Param("accountId") Long accountId, @Param("before") LocalDateTime before);
+
     List<Transaction> findByFromAccountIdOrderByTimestampDesc(Long fromAccountId);
     
     List<Transaction> findByToAccountIdOrderByTimestampDesc(Long toAccountId);
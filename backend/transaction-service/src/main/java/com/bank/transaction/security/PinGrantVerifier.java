@@ -0,0 +1,109 @@
+package com.bank.transaction.security;
+
+import com.bank.transaction.entity.PinGrantUse;
+import com.bank.transaction.repository.PinGrantUseRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.Locator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.Key;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Checks PIN grants issued by auth-service after a successful PIN check, so a withdrawal or transfer
+ * carrying a grant needs no call to auth-service and no BCrypt comparison. Grants are ES256-signed and
+ * checked against auth-service's JWKS, like login tokens. Remaining uses are counted in pin_grant_uses,
+ * so a grant's limit holds across all replicas rather than per instance.
+ */
+@Component
+@Slf4j
+public class PinGrantVerifier {
+    private static final String SCOPE = "pin:money-movement";
+    private static final String TYPE = "pin-grant+jwt";
+
+    private final JwtParser jwtParser;
+    private final PinGrantUseRepository pinGrantUseRepository;
+    // A use is taken even if the operation later fails, and never holds a lock for the caller's transaction
+    private final TransactionTemplate requiresNew;
+
+    public PinGrantVerifier(Locator<Key> keyLocator,
+                            PinGrantUseRepository pinGrantUseRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.jwtParser = Jwts.parser().keyLocator(keyLocator).build();
+        this.pinGrantUseRepository = pinGrantUseRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Uses up one operation of the grant. False when the grant is invalid, expired, issued to another
+     * user or already used up, in which case the caller falls back to a full PIN check.
+     */
+    public boolean consume(String grant, String username) {
+        Claims claims;
+        try {
+            Jws<Claims> jws = jwtParser.parseSignedClaims(grant);
+            // A login token is signed with the same keys; only a grant's typ counts
+            if (!TYPE.equals(jws.getHeader().getType())) {
+                return false;
+            }
+            claims = jws.getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
+        if (!SCOPE.equals(claims.get("scope", String.class)) || !claims.getSubject().equals(username)
+                || claims.getId() == null) {
+            return false;
+        }
+        Integer uses = claims.get("uses", Integer.class);
+        try {
+            return takeUse(claims.getId(), uses != null ? uses : 1,
+                    LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault()));
+        } catch (RuntimeException e) {
+            log.warn("Could not record use of PIN grant {}; falling back to a full PIN check", claims.getId(), e);
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pin-grant.purge-interval:PT10M}")
+    public void purgeExpired() {
+        int removed = requiresNew.execute(status -> pinGrantUseRepository.deleteExpired(LocalDateTime.now()));
+        if (removed > 0) {
+            log.debug("Purged {} expired PIN grant counters", removed);
+        }
+    }
+
+    private boolean takeUse(String grantId, int uses, LocalDateTime expiresAt) {
+        try {
+            return requiresNew.execute(status -> {
+                if (pinGrantUseRepository.takeUse(grantId) == 1) {
+                    return true;
+                }
+                if (uses < 1 || pinGrantUseRepository.existsById(grantId)) {
+                    return false;
+                }
+                // First use of this grant anywhere in the cluster
+                pinGrantUseRepository.saveAndFlush(PinGrantUse.builder()
+                        .grantId(grantId)
+                        .remaining(uses - 1)
+                        .expiresAt(expiresAt)
+                        .build());
+                return true;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another replica recorded the first use at the same moment; take one from its row
+            return requiresNew.execute(status -> pinGrantUseRepository.takeUse(grantId) == 1);
+        }
+    }
+}
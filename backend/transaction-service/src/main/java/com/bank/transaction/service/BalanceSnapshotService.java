@@ -0,0 +1,244 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.dto.LedgerBalance;
+import com.bank.transaction.entity.BalanceSnapshot;
+import com.bank.transaction.entity.SnapshotRepair;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.repository.BalanceSnapshotRepository;
+import com.bank.transaction.repository.SnapshotRepairRepository;
+import com.bank.transaction.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Daily per-account balance checkpoints, updated after each committed transaction. An update that cannot be
+ * applied marks the account for repair: its as-of balances fall back to the full history until the
+ * scheduled rebuild has rewritten its snapshots. So does an account's first checkpoint when it has history
+ * from before snapshots were kept, which would otherwise start from zero.
+ */
+@Service
+@Slf4j
+public class BalanceSnapshotService {
+    private static final int MAX_ATTEMPTS = 3;
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final TransactionRepository transactionRepository;
+    private final SnapshotRepairRepository snapshotRepairRepository;
+    private final int repairBatchSize;
+    private final TransactionTemplate requiresNew;
+    private final TransactionTemplate readOnly;
+
+    public BalanceSnapshotService(BalanceSnapshotRepository balanceSnapshotRepository,
+                                  TransactionRepository transactionRepository,
+                                  SnapshotRepairRepository snapshotRepairRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${transaction.snapshot.repair-batch-size:100}") int repairBatchSize) {
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.transactionRepository = transactionRepository;
+        this.snapshotRepairRepository = snapshotRepairRepository;
+        this.repairBatchSize = repairBatchSize;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    public void record(List<Transaction> transactions) {
+        // Only checkpoint rows that actually committed; snapshot writes never roll back a money movement
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(transactions);
+                }
+            });
+        } else {
+            apply(transactions);
+        }
+    }
+
+    public LedgerBalance balanceAsOf(Long accountId, LocalDateTime asOf) {
+        return readOnly.execute(status -> {
+            if (snapshotRepairRepository.existsById(accountId)) {
+                // The snapshots missed an update; only the full history is right until they are rebuilt
+                return new LedgerBalance(accountId, asOf, transactionRepository.sumNetMovement(accountId, MIN_TIME, asOf));
+            }
+            // Start from the last full day before asOf and only scan transactions after it
+            LocalDate day = asOf.toLocalDate();
+            BalanceSnapshot base = balanceSnapshotRepository
+                    .findTopByAccountIdAndSnapshotDateLessThanOrderBySnapshotDateDesc(accountId, day)
+                    .orElse(null);
+            if (base == null) {
+                // No checkpoint yet, possibly with history from before snapshots were kept
+                return new LedgerBalance(accountId, asOf, transactionRepository.sumNetMovement(accountId, MIN_TIME, asOf));
+            }
+            BigDecimal delta = transactionRepository.sumNetMovement(accountId, day.atStartOfDay(), asOf);
+            return new LedgerBalance(accountId, asOf, base.getClosingBalance().add(delta));
+        });
+    }
+
+    public int rebuild(Long accountId) {
+        LocalDateTime started = LocalDateTime.now();
+        Map<LocalDate, BigDecimal[]> days = new TreeMap<>();
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<Transaction> rows = transactionRepository.streamStatement(accountId, MIN_TIME, MAX_TIME)) {
+                Iterator<Transaction> it = rows.iterator();
+                while (it.hasNext()) {
+                    Transaction t = it.next();
+                    BigDecimal[] flows = days.computeIfAbsent(t.getTimestamp().toLocalDate(),
+                            d -> new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO});
+                    int side = accountId.equals(t.getToAccountId()) ? 0 : 1;
+                    flows[side] = flows[side].add(t.getAmount());
+                }
+            }
+        });
+        requiresNew.executeWithoutResult(status -> {
+            balanceSnapshotRepository.deleteByAccountId(accountId);
+            BigDecimal closing = BigDecimal.ZERO;
+            for (Map.Entry<LocalDate, BigDecimal[]> day : days.entrySet()) {
+                BigDecimal[] flows = day.getValue();
+                closing = closing.add(flows[0]).subtract(flows[1]);
+                balanceSnapshotRepository.save(BalanceSnapshot.builder()
+                        .accountId(accountId)
+                        .snapshotDate(day.getKey())
+                        .credits(flows[0])
+                        .debits(flows[1])
+                        .closingBalance(closing)
+                        .build());
+            }
+            snapshotRepairRepository.clear(accountId, started);
+        });
+        return days.size();
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.snapshot.repair-interval:PT5M}")
+    public int repairMarked() {
+        List<Long> accountIds = readOnly.execute(status ->
+                snapshotRepairRepository.findAccountIds(PageRequest.of(0, repairBatchSize)));
+        int repaired = 0;
+        for (Long accountId : accountIds) {
+            try {
+                rebuild(accountId);
+                repaired++;
+            } catch (RuntimeException e) {
+                // Still marked, so the next run tries again
+                log.warn("Could not rebuild balance snapshots of account {}", accountId, e);
+            }
+        }
+        if (repaired > 0) {
+            log.info("Rebuilt balance snapshots of {} accounts marked for repair", repaired);
+        }
+        return repaired;
+    }
+
+    private void apply(List<Transaction> transactions) {
+        // Collapse the batch to one credit/debit pair per account and day
+        Map<Long, Map<LocalDate, BigDecimal[]>> flows = new TreeMap<>();
+        for (Transaction t : transactions) {
+            if (t.getTimestamp() == null) {
+                // Guessing the day could checkpoint it on the wrong date; leave it to the rebuild
+                markForRepair(t.getToAccountId());
+                markForRepair(t.getFromAccountId());
+                continue;
+            }
+            LocalDate day = t.getTimestamp().toLocalDate();
+            if (t.getToAccountId() != null) {
+                BigDecimal[] credit = flowsFor(flows, t.getToAccountId(), day);
+                credit[0] = credit[0].add(t.getAmount());
+            }
+            if (t.getFromAccountId() != null) {
+                BigDecimal[] debit = flowsFor(flows, t.getFromAccountId(), day);
+                debit[1] = debit[1].add(t.getAmount());
+            }
+        }
+        flows.forEach((accountId, days) -> days.forEach((day, f) -> applyDay(accountId, day, f[0], f[1])));
+    }
+
+    private BigDecimal[] flowsFor(Map<Long, Map<LocalDate, BigDecimal[]>> flows, Long accountId, LocalDate day) {
+        return flows.computeIfAbsent(accountId, id -> new TreeMap<>())
+                .computeIfAbsent(day, d -> new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO});
+    }
+
+    private void applyDay(Long accountId, LocalDate day, BigDecimal credits, BigDecimal debits) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                if (requiresNew.execute(status -> upsertDay(accountId, day, credits, debits))) {
+                    return;
+                }
+                // The new checkpoint started from zero over older history; rebuild it from the full ledger
+                break;
+            } catch (DataIntegrityViolationException e) {
+                // Another request created the same day's row first; the next attempt updates it instead
+                log.debug("Snapshot insert race for account {} on {}, attempt {}", accountId, day, attempt);
+            } catch (RuntimeException e) {
+                log.warn("Could not update balance snapshot for account {} on {}", accountId, day, e);
+                break;
+            }
+        }
+        markForRepair(accountId);
+    }
+
+    private void markForRepair(Long accountId) {
+        if (accountId == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                if (snapshotRepairRepository.remark(accountId, now) == 0) {
+                    snapshotRepairRepository.saveAndFlush(SnapshotRepair.builder()
+                            .accountId(accountId)
+                            .markedAt(now)
+                            .build());
+                }
+            });
+            log.warn("Balance snapshots of account {} marked for repair", accountId);
+        } catch (DataIntegrityViolationException e) {
+            // Marked by a concurrent failure at about the same time
+            log.debug("Account {} was already marked for snapshot repair", accountId);
+        } catch (RuntimeException e) {
+            log.error("Could not mark balance snapshots of account {} for repair; rebuild them manually", accountId, e);
+        }
+    }
+
+    // False when the account has transactions before this day that no snapshot covers
+    private boolean upsertDay(Long accountId, LocalDate day, BigDecimal credits, BigDecimal debits) {
+        BigDecimal net = credits.subtract(debits);
+        boolean covered = true;
+        if (balanceSnapshotRepository.addToDay(accountId, day, credits, debits) == 0) {
+            BalanceSnapshot previous = balanceSnapshotRepository
+                    .findTopByAccountIdAndSnapshotDateLessThanOrderBySnapshotDateDesc(accountId, day)
+                    .orElse(null);
+            covered = previous != null || !transactionRepository.existsByAccountIdBefore(accountId, day.atStartOfDay());
+            balanceSnapshotRepository.saveAndFlush(BalanceSnapshot.builder()
+                    .accountId(accountId)
+                    .snapshotDate(day)
+                    .credits(credits)
+                    .debits(debits)
+                    .closingBalance(previous != null ? previous.getClosingBalance().add(net) : net)
+                    .build());
+        }
+        balanceSnapshotRepository.shiftLaterDays(accountId, day, net);
+        return covered;
+    }
+}
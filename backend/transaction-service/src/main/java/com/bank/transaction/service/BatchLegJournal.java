@@ -0,0 +1,74 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.repository.PendingBatchLegRepository;
+import com.bank.transaction.repository.TransactionBatchWriter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-ahead record of batch chunks. A chunk's legs are journaled before account-service moves any money
+ * and cleared in the same DB transaction that inserts the applied legs as transactions, so a chunk whose
+ * outcome was lost or whose transactions could not be saved is never silently forgotten.
+ */
+@Service
+@Slf4j
+public class BatchLegJournal {
+    private final TransactionBatchWriter transactionBatchWriter;
+    private final PendingBatchLegRepository pendingBatchLegRepository;
+    private final Duration reconcileAfter;
+    private final AtomicLong unreconciled = new AtomicLong();
+
+    public BatchLegJournal(TransactionBatchWriter transactionBatchWriter,
+                           PendingBatchLegRepository pendingBatchLegRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${transaction.batch.reconcile-after:5m}") Duration reconcileAfter) {
+        this.transactionBatchWriter = transactionBatchWriter;
+        this.pendingBatchLegRepository = pendingBatchLegRepository;
+        this.reconcileAfter = reconcileAfter;
+        Gauge.builder("transaction.batch.unreconciled", unreconciled, AtomicLong::get)
+                .description("Journaled batch legs whose outcome was never recorded")
+                .register(meterRegistry);
+    }
+
+    // Returns the chunk id to pass to complete or discard
+    public String record(List<Transaction> legs) {
+        String chunkId = UUID.randomUUID().toString();
+        transactionBatchWriter.insertPending(chunkId, legs);
+        return chunkId;
+    }
+
+    @Transactional
+    public void complete(String chunkId, List<Transaction> applied) {
+        transactionBatchWriter.insertAll(applied);
+        pendingBatchLegRepository.deleteByChunkId(chunkId);
+    }
+
+    // Only for chunks account-service is known not to have applied
+    @Transactional
+    public void discard(String chunkId) {
+        pendingBatchLegRepository.deleteByChunkId(chunkId);
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.batch.reconcile-check-interval:PT5M}")
+    public long checkUnreconciled() {
+        long count = pendingBatchLegRepository.countByCreatedAtBefore(LocalDateTime.now().minus(reconcileAfter));
+        unreconciled.set(count);
+        if (count > 0) {
+            log.error("{} batch legs older than {} have no recorded outcome; reconcile them against account balances",
+                    count, reconcileAfter);
+        }
+        return count;
+    }
+}
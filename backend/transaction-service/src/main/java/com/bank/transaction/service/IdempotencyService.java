@@ -0,0 +1,236 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.entity.IdempotencyRecord;
+import com.bank.transaction.entity.IdempotencyRecord.Status;
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.exception.AccountNotFoundException;
+import com.bank.transaction.exception.DuplicateRequestException;
+import com.bank.transaction.exception.IdempotencyKeyMismatchException;
+import com.bank.transaction.exception.InsufficientBalanceException;
+import com.bank.transaction.exception.TransactionRejectedException;
+import com.bank.transaction.repository.IdempotencyRecordRepository;
+import com.bank.transaction.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+/**
+ * Runs money movements at most once per Idempotency-Key. Keys are scoped to the calling principal and the
+ * endpoint, and bound to the request body they were first used with. The scoped key is also stamped on the
+ * transaction row, so a request whose completion could not be recorded is still recognised on retry.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate requiresNew;
+    private final Duration ttl;
+    // Completed keys only: scoped key -> record
+    private final Cache<String, IdempotencyRecord> completed;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              TransactionRepository transactionRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${transaction.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${transaction.idempotency.cache-size:10000}") long cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = ttl;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Runs {@code operation} unless this caller already sent {@code request} to {@code endpoint} with the same
+     * key. The operation receives the scoped key (null without a client key) to stamp on the transaction it saves.
+     */
+    public Transaction execute(String key, String endpoint, Object request, Function<String, Transaction> operation) {
+        if (key == null || key.isBlank()) {
+            return operation.apply(null);
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String scopedKey = sha256(currentPrincipal() + "\n" + endpoint + "\n" + key);
+        String requestHash = hashRequest(request);
+        IdempotencyRecord record = completed.getIfPresent(scopedKey);
+        if (record != null) {
+            checkSameRequest(record, requestHash);
+        } else {
+            record = claim(scopedKey, requestHash);
+        }
+        if (record != null) {
+            // A retry of a finished request: hand back the original result without touching account-service
+            return transactionRepository.findById(record.getTransactionId())
+                    .filter(transaction -> scopedKey.equals(transaction.getIdempotencyKey()))
+                    .orElseThrow(() -> new DuplicateRequestException("Transaction for Idempotency-Key is no longer available"));
+        }
+
+        Transaction result;
+        try {
+            result = operation.apply(scopedKey);
+        } catch (RuntimeException e) {
+            if (isRejection(e)) {
+                release(scopedKey);
+            } else {
+                markOutcomeUnknown(scopedKey);
+            }
+            throw e;
+        }
+        complete(scopedKey, requestHash, result.getTransactionId());
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        int removed = requiresNew.execute(status -> idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+        if (removed > 0) {
+            log.debug("Purged {} expired idempotency keys", removed);
+        }
+    }
+
+    // Returns the record of a finished request, or null once this caller owns the key
+    private IdempotencyRecord claim(String scopedKey, String requestHash) {
+        IdempotencyRecord existing = idempotencyRecordRepository.findById(scopedKey).orElse(null);
+        if (existing != null && existing.getExpiresAt().isAfter(LocalDateTime.now())) {
+            checkSameRequest(existing, requestHash);
+            if (existing.getStatus() != Status.COMPLETED) {
+                // The transaction row carries the key, so a request whose completion was never recorded is found here
+                Long transactionId = transactionRepository.findIdByIdempotencyKey(scopedKey).orElse(null);
+                if (transactionId == null) {
+                    throw new DuplicateRequestException(existing.getStatus() == Status.OUTCOME_UNKNOWN
+                            ? "The outcome of an earlier request with this Idempotency-Key is unknown; check the account history before retrying with a new key"
+                            : "A request with this Idempotency-Key is already in progress");
+                }
+                complete(scopedKey, requestHash, transactionId);
+                existing.setTransactionId(transactionId);
+            }
+            completed.put(scopedKey, existing);
+            return existing;
+        }
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                if (existing != null) {
+                    idempotencyRecordRepository.deleteById(scopedKey);
+                    idempotencyRecordRepository.flush();
+                }
+                idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .idempotencyKey(scopedKey)
+                        .requestHash(requestHash)
+                        .status(Status.IN_PROGRESS)
+                        .expiresAt(LocalDateTime.now().plus(ttl))
+                        .build());
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateRequestException("A request with this Idempotency-Key is already in progress");
+        }
+        return null;
+    }
+
+    private void checkSameRequest(IdempotencyRecord record, String requestHash) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key was already used with a different request");
+        }
+    }
+
+    private void complete(String scopedKey, String requestHash, Long transactionId) {
+        IdempotencyRecord done = IdempotencyRecord.builder()
+                .idempotencyKey(scopedKey)
+                .requestHash(requestHash)
+                .status(Status.COMPLETED)
+                .transactionId(transactionId)
+                .build();
+        completed.put(scopedKey, done);
+        try {
+            requiresNew.executeWithoutResult(status -> idempotencyRecordRepository.findById(scopedKey).ifPresent(record -> {
+                record.setStatus(Status.COMPLETED);
+                record.setTransactionId(transactionId);
+                idempotencyRecordRepository.save(record);
+            }));
+        } catch (RuntimeException e) {
+            // The money moved and the transaction row is saved; a retry resolves the key through that row
+            log.error("Could not record completion of Idempotency-Key for transaction {}", transactionId, e);
+        }
+    }
+
+    private void markOutcomeUnknown(String scopedKey) {
+        try {
+            requiresNew.executeWithoutResult(status -> idempotencyRecordRepository.findById(scopedKey).ifPresent(record -> {
+                record.setStatus(Status.OUTCOME_UNKNOWN);
+                idempotencyRecordRepository.save(record);
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Could not mark Idempotency-Key outcome unknown; it stays in progress until it expires after {}", ttl, e);
+        }
+    }
+
+    private void release(String scopedKey) {
+        try {
+            requiresNew.executeWithoutResult(status -> idempotencyRecordRepository.deleteById(scopedKey));
+        } catch (RuntimeException e) {
+            log.warn("Could not release Idempotency-Key; it will expire after {}", ttl, e);
+        }
+    }
+
+    // Failures raised before account-service changed any balance; anything else (timeouts, 5xx, a failed save
+    // after the debit) may have moved money, so the key must not be reused
+    private static boolean isRejection(RuntimeException e) {
+        return e instanceof TransactionRejectedException
+                || e instanceof InsufficientBalanceException
+                || e instanceof AccountNotFoundException
+                || e instanceof IllegalArgumentException
+                || e instanceof SecurityException;
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private String hashRequest(Object request) {
+        try {
+            return sha256(objectMapper.writeValueAsString(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request body cannot be serialized", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
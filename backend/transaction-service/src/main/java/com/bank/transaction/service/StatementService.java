@@ -0,0 +1,97 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class StatementService {
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final String CSV_HEADER = "transactionId,timestamp,transactionType,direction,amount,fromAccountId,toAccountId,description";
+
+    private final TransactionRepository transactionRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public enum StatementFormat {
+        CSV, NDJSON
+    }
+
+    public static StatementFormat parseFormat(String format) {
+        try {
+            return StatementFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid format. Must be CSV or NDJSON");
+        }
+    }
+
+    // Rows come off a JDBC cursor and are detached once written, so heap use does not grow with history length
+    @Transactional(readOnly = true)
+    public void writeStatement(Long accountId, LocalDateTime from, LocalDateTime to,
+                               StatementFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == StatementFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        try (Stream<Transaction> rows = transactionRepository.streamStatement(
+                accountId, from != null ? from : MIN_TIME, to != null ? to : MAX_TIME)) {
+            Iterator<Transaction> it = rows.iterator();
+            while (it.hasNext()) {
+                Transaction t = it.next();
+                if (format == StatementFormat.CSV) {
+                    writeCsvRow(writer, t, accountId);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(t));
+                }
+                writer.write('\n');
+                entityManager.detach(t);
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeCsvRow(Writer writer, Transaction t, Long accountId) throws IOException {
+        writer.write(String.valueOf(t.getTransactionId()));
+        writer.write(',');
+        writer.write(t.getTimestamp().toString());
+        writer.write(',');
+        writer.write(t.getTransactionType().name());
+        writer.write(',');
+        writer.write(accountId.equals(t.getToAccountId()) ? "CREDIT" : "DEBIT");
+        writer.write(',');
+        writer.write(t.getAmount().toPlainString());
+        writer.write(',');
+        writer.write(t.getFromAccountId() != null ? t.getFromAccountId().toString() : "");
+        writer.write(',');
+        writer.write(t.getToAccountId() != null ? t.getToAccountId().toString() : "");
+        writer.write(',');
+        writer.write(csvEscape(t.getDescription()));
+    }
+
+    private String csvEscape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,176 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.dto.AccountDto;
+import com.bank.transaction.exception.AccountNotFoundException;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bounded TTL read-through cache of account and customer status for transaction validation. Concurrent
+ * misses for one id share a single remote lookup, and the misses of a bulk read go out as one
+ * batch-lookup / batch-status call per chunk. account-service and customer-service report changes through
+ * {@link #invalidate}; the TTL bounds staleness when a notification is lost. Balances are never cached:
+ * cached accounts carry no balance, and account-service re-checks funds in its conditional debit.
+ */
+@Service
+public class StatusCache {
+    // Matches the per-request caps of POST /accounts/batch-lookup and POST /customers/batch-status
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private final WebClient accountServiceWebClient;
+    private final WebClient customerServiceWebClient;
+    private final MeterRegistry meterRegistry;
+    private final AsyncCache<Long, AccountDto> accounts;
+    private final AsyncCache<Long, String> customerStatuses;
+    // Account numbers never change, so this mapping needs no invalidation
+    private final Cache<String, Long> accountIdsByNumber;
+
+    public StatusCache(WebClient accountServiceWebClient,
+                       WebClient customerServiceWebClient,
+                       MeterRegistry meterRegistry,
+                       @Value("${transaction.status-cache.ttl:30s}") Duration ttl,
+                       @Value("${transaction.status-cache.max-size:10000}") long maxSize) {
+        this.accountServiceWebClient = accountServiceWebClient;
+        this.customerServiceWebClient = customerServiceWebClient;
+        this.meterRegistry = meterRegistry;
+        this.accounts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        this.customerStatuses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        this.accountIdsByNumber = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, accounts.synchronous(), "accountStatus");
+        CaffeineCacheMetrics.monitor(meterRegistry, customerStatuses.synchronous(), "customerStatus");
+    }
+
+    public Mono<AccountDto> account(Long accountId) {
+        return accounts(List.of(accountId)).flatMap(found -> found.containsKey(accountId)
+                ? Mono.just(found.get(accountId))
+                : Mono.error(new AccountNotFoundException("Account not found with id: " + accountId)));
+    }
+
+    /**
+     * Cached status of each known account; unknown ids are absent from the map.
+     */
+    public Mono<Map<Long, AccountDto>> accounts(Collection<Long> accountIds) {
+        // suppressCancel: the loading future is shared with other callers waiting on the same ids
+        return Mono.fromFuture(() -> accounts.getAll(accountIds, (missing, executor) ->
+                Flux.fromIterable(chunks(missing))
+                        .concatMap(chunk -> lookupAccounts(chunk, List.of()).flatMapMany(Flux::fromIterable))
+                        .doOnNext(this::rememberNumber)
+                        .collectMap(AccountDto::getAccountId)
+                        .toFuture()), true);
+    }
+
+    public Mono<AccountDto> accountByNumber(String accountNumber) {
+        Long accountId = accountIdsByNumber.getIfPresent(accountNumber);
+        if (accountId != null) {
+            return account(accountId);
+        }
+        return lookupAccounts(List.of(), List.of(accountNumber)).flatMap(found -> {
+            if (found.isEmpty()) {
+                return Mono.error(new AccountNotFoundException("Account not found: " + accountNumber));
+            }
+            AccountDto account = found.get(0);
+            rememberNumber(account);
+            accounts.asMap().putIfAbsent(account.getAccountId(), CompletableFuture.completedFuture(account));
+            return Mono.just(account);
+        });
+    }
+
+    /**
+     * Cached status of each known customer; unknown ids are absent from the map.
+     */
+    public Mono<Map<Long, String>> customerStatuses(Collection<Long> customerIds) {
+        return Mono.fromFuture(() -> customerStatuses.getAll(customerIds, (missing, executor) ->
+                Flux.fromIterable(chunks(missing))
+                        .concatMap(this::fetchCustomerStatuses)
+                        .<Map<Long, String>>collect(HashMap::new, Map::putAll)
+                        .toFuture()), true);
+    }
+
+    /**
+     * Drops the given accounts and customers, including loads still in flight. A customer id also drops the
+     * cached accounts of that customer, since each account carries a copy of its customer's status.
+     */
+    public void invalidate(Collection<Long> accountIds, Collection<Long> customerIds) {
+        accounts.asMap().keySet().removeAll(accountIds);
+        customerStatuses.asMap().keySet().removeAll(customerIds);
+        if (!customerIds.isEmpty()) {
+            accounts.asMap().values().removeIf(future -> {
+                // Loads still in flight or failed are dropped too; getNow never blocks on them
+                AccountDto account = future.isDone() && !future.isCompletedExceptionally() ? future.getNow(null) : null;
+                return account == null || customerIds.contains(account.getCustomerId());
+            });
+        }
+    }
+
+    private void rememberNumber(AccountDto account) {
+        // Strip the balance before the entry can be shared; it is only ever checked by account-service
+        account.setBalance(null);
+        if (account.getAccountNumber() != null) {
+            accountIdsByNumber.put(account.getAccountNumber(), account.getAccountId());
+        }
+    }
+
+    private Mono<List<AccountDto>> lookupAccounts(Collection<Long> accountIds, Collection<String> accountNumbers) {
+        Map<String, Object> lookupRequest = new HashMap<>();
+        lookupRequest.put("accountIds", accountIds);
+        lookupRequest.put("accountNumbers", accountNumbers);
+        return timed("account", accountServiceWebClient.post()
+                .uri("/accounts/batch-lookup")
+                .bodyValue(lookupRequest)
+                .retrieve()
+                .bodyToFlux(AccountDto.class)
+                .collectList());
+    }
+
+    private Mono<Map<Long, String>> fetchCustomerStatuses(Collection<Long> customerIds) {
+        return timed("customer", customerServiceWebClient.post()
+                .uri("/customers/batch-status")
+                .bodyValue(Map.of("customerIds", customerIds))
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<Long, String>>() {}));
+    }
+
+    private static List<List<Long>> chunks(Collection<? extends Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int start = 0; start < all.size(); start += LOOKUP_CHUNK_SIZE) {
+            chunks.add(all.subList(start, Math.min(start + LOOKUP_CHUNK_SIZE, all.size())));
+        }
+        return chunks;
+    }
+
+    private <T> Mono<T> timed(String stage, Mono<T> mono) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return mono.doFinally(signal -> sample.stop(meterRegistry.timer("transaction.validation", "stage", stage)));
+        });
+    }
+}
@@ -1,8 +1,11 @@
 package com.bank.transaction.service;
 
 import com.bank.transaction.dto.AccountDto;
-import com.bank.transaction.dto.CustomerDto;
+import com.bank.transaction.dto.BatchLeg;
+import com.bank.transaction.dto.BatchLegResult;
+import com.bank.transaction.dto.BatchTransactionResponse;
 import com.bank.transaction.dto.DepositRequest;
+import com.bank.transaction.dto.TransactionPage;
 import com.bank.transaction.dto.TransferByAccountNumberRequest;
 import com.bank.transaction.dto.TransferRequest;
 import com.bank.transaction.dto.WithdrawRequest;
@@ -10,30 +13,73 @@ import com.bank.transaction.entity.Transaction;
 import com.bank.transaction.entity.Transaction.TransactionType;
 import com.bank.transaction.exception.AccountNotFoundException;
 import com.bank.transaction.exception.InsufficientBalanceException;
+import com.bank.transaction.exception.TransactionRejectedException;
 import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.security.PinGrantVerifier;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple3;
 
 import java.math.BigDecimal;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Slf4j
 public class TransactionService {
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final Comparator<Transaction> NEWEST_FIRST = Comparator
+            .comparing(Transaction::getTimestamp)
+            .thenComparing(Transaction::getTransactionId)
+            .reversed();
+
     private final TransactionRepository transactionRepository;
+    private final BatchLegJournal batchLegJournal;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final PinGrantVerifier pinGrantVerifier;
     private final WebClient accountServiceWebClient;
     private final WebClient authServiceWebClient;
-    private final WebClient customerServiceWebClient;
+    private final StatusCache statusCache;
+    private final MeterRegistry meterRegistry;
 
-    public Transaction deposit(DepositRequest request) {
-        AccountDto account = getAccount(request.getAccountId());
-        validateAccountStatus(account);
-        validateCustomerStatus(account.getCustomerId());
+    @Value("${transaction.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    @Value("${transaction.history.max-page-size:200}")
+    private int maxPageSize;
+
+    public Transaction deposit(DepositRequest request, String idempotencyKey) {
+        timed("total", validatedAccount(statusCache.account(request.getAccountId()))).block();
         
         updateAccountBalance(request.getAccountId(), request.getAmount(), true);
         
@@ -42,23 +88,20 @@ public class TransactionService {
                 .amount(request.getAmount())
                 .transactionType(TransactionType.DEPOSIT)
                 .description(request.getDescription() != null ? request.getDescription() : "Deposit")
+                .idempotencyKey(idempotencyKey)
                 .build();
         
-        return transactionRepository.save(transaction);
+        return saveAndRecord(transaction);
     }
 
-    public Transaction withdraw(WithdrawRequest request) {
-        // Validate PIN first
-        validatePin(request.getUsername(), request.getPin());
-        
-        AccountDto account = getAccount(request.getAccountId());
-        validateAccountStatus(account);
-        validateCustomerStatus(account.getCustomerId());
-        
-        if (account.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientBalanceException("Insufficient balance for withdrawal");
-        }
+    public Transaction withdraw(WithdrawRequest request, String idempotencyKey) {
+        // PIN check and account validation do not depend on each other, so run them concurrently
+        timed("total", Mono.zip(
+                        authorizePin(request.getUsername(), request.getPin(), request.getPinGrant()).thenReturn(true),
+                        validatedAccount(statusCache.account(request.getAccountId()))))
+                .block();
         
+        // The balance is checked by account-service's conditional debit, never against a cached copy
         updateAccountBalance(request.getAccountId(), request.getAmount(), false);
         
         Transaction transaction = Transaction.builder()
@@ -66,29 +109,25 @@ public class TransactionService {
                 .amount(request.getAmount())
                 .transactionType(TransactionType.WITHDRAW)
                 .description(request.getDescription() != null ? request.getDescription() : "Withdrawal")
+                .idempotencyKey(idempotencyKey)
                 .build();
         
-        return transactionRepository.save(transaction);
+        return saveAndRecord(transaction);
     }
 
-    public Transaction transfer(TransferRequest request) {
+    public Transaction transfer(TransferRequest request, String idempotencyKey) {
         if (request.getFromAccountId().equals(request.getToAccountId())) {
             throw new IllegalArgumentException("Cannot transfer to the same account");
         }
         
-        AccountDto fromAccount = getAccount(request.getFromAccountId());
-        AccountDto toAccount = getAccount(request.getToAccountId());
-        validateAccountStatus(fromAccount);
-        validateAccountStatus(toAccount);
-        validateCustomerStatus(fromAccount.getCustomerId());
-        validateCustomerStatus(toAccount.getCustomerId());
-        
-        if (fromAccount.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientBalanceException("Insufficient balance for transfer");
-        }
+        // Both accounts come back from one cache read (one lookup for whatever is missing)
+        timed("total", statusCache.accounts(List.of(request.getFromAccountId(), request.getToAccountId()))
+                .flatMap(found -> Mono.zip(
+                        validatedAccount(accountById(found, request.getFromAccountId())),
+                        validatedAccount(accountById(found, request.getToAccountId())))))
+                .block();
         
-        updateAccountBalance(request.getFromAccountId(), request.getAmount(), false);
-        updateAccountBalance(request.getToAccountId(), request.getAmount(), true);
+        transferBalance(request.getFromAccountId(), request.getToAccountId(), request.getAmount());
         
         Transaction transaction = Transaction.builder()
                 .fromAccountId(request.getFromAccountId())
@@ -96,32 +135,26 @@ public class TransactionService {
                 .amount(request.getAmount())
                 .transactionType(TransactionType.TRANSFER)
                 .description(request.getDescription() != null ? request.getDescription() : "Transfer")
+                .idempotencyKey(idempotencyKey)
                 .build();
         
-        return transactionRepository.save(transaction);
+        return saveAndRecord(transaction);
     }
 
-    public Transaction transferByAccountNumber(TransferByAccountNumberRequest request) {
-        // Validate PIN first
-        validatePin(request.getUsername(), request.getPin());
-        
-        AccountDto fromAccount = getAccount(request.getFromAccountId());
-        AccountDto toAccount = getAccountByNumber(request.getToAccountNumber());
-        validateAccountStatus(fromAccount);
-        validateAccountStatus(toAccount);
-        validateCustomerStatus(fromAccount.getCustomerId());
-        validateCustomerStatus(toAccount.getCustomerId());
+    public Transaction transferByAccountNumber(TransferByAccountNumberRequest request, String idempotencyKey) {
+        Tuple3<Boolean, AccountDto, AccountDto> validated = timed("total", Mono.zip(
+                        authorizePin(request.getUsername(), request.getPin(), request.getPinGrant()).thenReturn(true),
+                        validatedAccount(statusCache.account(request.getFromAccountId())),
+                        validatedAccount(statusCache.accountByNumber(request.getToAccountNumber()))))
+                .block();
+        AccountDto fromAccount = validated.getT2();
+        AccountDto toAccount = validated.getT3();
         
         if (fromAccount.getAccountId().equals(toAccount.getAccountId())) {
             throw new IllegalArgumentException("Cannot transfer to the same account");
         }
         
-        if (fromAccount.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientBalanceException("Insufficient balance for transfer");
-        }
-        
-        updateAccountBalance(request.getFromAccountId(), request.getAmount(), false);
-        updateAccountBalance(toAccount.getAccountId(), request.getAmount(), true);
+        transferBalance(request.getFromAccountId(), toAccount.getAccountId(), request.getAmount());
         
         Transaction transaction = Transaction.builder()
                 .fromAccountId(request.getFromAccountId())
@@ -129,9 +162,51 @@ public class TransactionService {
                 .amount(request.getAmount())
                 .transactionType(TransactionType.TRANSFER)
                 .description(request.getDescription() != null ? request.getDescription() : "Transfer")
+                .idempotencyKey(idempotencyKey)
                 .build();
         
-        return transactionRepository.save(transaction);
+        return saveAndRecord(transaction);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchTransactionResponse processBatch(List<BatchLeg> legs, Consumer<BatchTransactionResponse> progress) {
+        List<BatchLegResult> results = new ArrayList<>(legs.size());
+
+        // Validate every distinct account (and customer, where the account does not carry its status) once
+        Set<Long> accountIds = new LinkedHashSet<>();
+        for (BatchLeg leg : legs) {
+            if (leg.getFromAccountId() != null) {
+                accountIds.add(leg.getFromAccountId());
+            }
+            if (leg.getToAccountId() != null) {
+                accountIds.add(leg.getToAccountId());
+            }
+        }
+        Map<Long, AccountDto> accounts = timed("total", statusCache.accounts(accountIds)).block();
+        Map<Long, String> customerStatuses = timed("total", fetchCustomerStatuses(accounts)).block();
+
+        List<Integer> pending = new ArrayList<>();
+        List<BatchLegResult> rejectedUpFront = new ArrayList<>();
+        for (int i = 0; i < legs.size(); i++) {
+            String rejection = validateLeg(legs.get(i), accounts, customerStatuses);
+            if (rejection == null) {
+                pending.add(i);
+            } else {
+                rejectedUpFront.add(new BatchLegResult(i, false, rejection));
+            }
+        }
+        results.addAll(rejectedUpFront);
+        progress.accept(summarize(legs.size(), results, rejectedUpFront));
+
+        for (int start = 0; start < pending.size(); start += batchChunkSize) {
+            List<Integer> chunk = pending.subList(start, Math.min(start + batchChunkSize, pending.size()));
+            List<BatchLegResult> chunkResults = applyChunk(legs, chunk);
+            results.addAll(chunkResults);
+            progress.accept(summarize(legs.size(), results, chunkResults));
+        }
+
+        results.sort(Comparator.comparingInt(BatchLegResult::getIndex));
+        return summarize(legs.size(), results, results);
     }
 
     @Transactional(readOnly = true)
@@ -139,14 +214,228 @@ public class TransactionService {
         return transactionRepository.findByAccountId(accountId);
     }
 
-    private AccountDto getAccount(Long accountId) {
-        return accountServiceWebClient.get()
-                .uri("/accounts/{id}", accountId)
-                .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError,
-                    response -> Mono.error(new AccountNotFoundException("Account not found with id: " + accountId)))
-                .bodyToMono(AccountDto.class)
-                .block();
+    @Transactional(readOnly = true)
+    public TransactionPage getTransactionPage(Long accountId, String cursor, int size,
+                                              LocalDateTime from, LocalDateTime to, TransactionType type) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        LocalDateTime cursorTime = MAX_TIME;
+        Long cursorId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            cursorTime = LocalDateTime.parse(parts[0]);
+            cursorId = Long.parseLong(parts[1]);
+        }
+        LocalDateTime fromTime = from != null ? from : MIN_TIME;
+        LocalDateTime toTime = to != null ? to : MAX_TIME;
+        Collection<TransactionType> types = type != null ? List.of(type) : EnumSet.allOf(TransactionType.class);
+
+        // Fetch one extra row per side to know whether another page exists, then merge the two index scans
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Transaction> merged = new ArrayList<>(transactionRepository.findOutgoingPage(
+                accountId, cursorTime, cursorId, fromTime, toTime, types, limit));
+        merged.addAll(transactionRepository.findIncomingPage(
+                accountId, cursorTime, cursorId, fromTime, toTime, types, limit));
+        merged.sort(NEWEST_FIRST);
+
+        boolean hasMore = merged.size() > pageSize;
+        List<Transaction> page = hasMore ? new ArrayList<>(merged.subList(0, pageSize)) : merged;
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+        return new TransactionPage(page, nextCursor, hasMore);
+    }
+
+    private String encodeCursor(Transaction last) {
+        String raw = last.getTimestamp() + "|" + last.getTransactionId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private Transaction saveAndRecord(Transaction transaction) {
+        Transaction saved = transactionRepository.save(transaction);
+        balanceSnapshotService.record(List.of(saved));
+        return saved;
+    }
+
+    private List<BatchLegResult> applyChunk(List<BatchLeg> legs, List<Integer> chunk) {
+        List<Map<String, Object>> balanceLegs = new ArrayList<>(chunk.size());
+        List<Transaction> journaled = new ArrayList<>(chunk.size());
+        for (Integer index : chunk) {
+            BatchLeg leg = legs.get(index);
+            Map<String, Object> balanceLeg = new HashMap<>();
+            if (leg.getTransactionType() != TransactionType.DEPOSIT) {
+                balanceLeg.put("fromAccountId", leg.getFromAccountId());
+            }
+            if (leg.getTransactionType() != TransactionType.WITHDRAW) {
+                balanceLeg.put("toAccountId", leg.getToAccountId());
+            }
+            balanceLeg.put("amount", leg.getAmount());
+            balanceLegs.add(balanceLeg);
+            journaled.add(toTransaction(leg));
+        }
+
+        // Journal the legs before any balance moves, so a chunk whose outcome is lost is left for reconciliation
+        String chunkId = batchLegJournal.record(journaled);
+        List<BatchLegResult> applied;
+        try {
+            applied = accountServiceWebClient.post()
+                    .uri("/accounts/batch")
+                    .bodyValue(Map.of("legs", balanceLegs))
+                    .retrieve()
+                    .bodyToFlux(BatchLegResult.class)
+                    .collectList()
+                    .block();
+        } catch (RuntimeException e) {
+            boolean notApplied = isNotApplied(e);
+            String message = notApplied
+                    ? "Account service unavailable"
+                    : "Account service outcome unknown; legs recorded for reconciliation";
+            if (notApplied) {
+                batchLegJournal.discard(chunkId);
+                log.warn("Batch chunk {} of {} legs was not applied by account service", chunkId, chunk.size(), e);
+            } else {
+                log.error("Batch chunk {} of {} legs has an unknown outcome in account service", chunkId, chunk.size(), e);
+            }
+            List<BatchLegResult> failed = new ArrayList<>(chunk.size());
+            for (Integer index : chunk) {
+                failed.add(new BatchLegResult(index, false, message));
+            }
+            return failed;
+        }
+
+        // account-service numbers legs within the chunk; map them back to positions in the request
+        List<BatchLegResult> results = new ArrayList<>(chunk.size());
+        List<Transaction> transactions = new ArrayList<>();
+        for (BatchLegResult result : applied) {
+            int index = chunk.get(result.getIndex());
+            results.add(new BatchLegResult(index, result.isApplied(), result.getMessage()));
+            if (result.isApplied()) {
+                transactions.add(journaled.get(result.getIndex()));
+            }
+        }
+        try {
+            batchLegJournal.complete(chunkId, transactions);
+        } catch (RuntimeException e) {
+            // The balances moved; the journaled legs stay behind and are reported for reconciliation
+            log.error("Could not save {} applied legs of batch chunk {}; left for reconciliation",
+                    transactions.size(), chunkId, e);
+            return results;
+        }
+        balanceSnapshotService.record(transactions);
+        return results;
+    }
+
+    // A 4xx answer or a refused connection means account-service never ran the chunk
+    private static boolean isNotApplied(RuntimeException e) {
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is4xxClientError();
+        }
+        return e instanceof WebClientRequestException && e.getCause() instanceof ConnectException;
+    }
+
+    private Transaction toTransaction(BatchLeg leg) {
+        TransactionType type = leg.getTransactionType();
+        String defaultDescription = switch (type) {
+            case DEPOSIT -> "Deposit";
+            case WITHDRAW -> "Withdrawal";
+            case TRANSFER -> "Transfer";
+        };
+        return Transaction.builder()
+                .fromAccountId(type == TransactionType.DEPOSIT ? null : leg.getFromAccountId())
+                .toAccountId(type == TransactionType.WITHDRAW ? null : leg.getToAccountId())
+                .amount(leg.getAmount())
+                .transactionType(type)
+                .description(leg.getDescription() != null ? leg.getDescription() : defaultDescription)
+                .build();
+    }
+
+    private String validateLeg(BatchLeg leg, Map<Long, AccountDto> accounts, Map<Long, String> customerStatuses) {
+        TransactionType type = leg.getTransactionType();
+        if (type != TransactionType.DEPOSIT && leg.getFromAccountId() == null) {
+            return "From account ID is required";
+        }
+        if (type != TransactionType.WITHDRAW && leg.getToAccountId() == null) {
+            return "To account ID is required";
+        }
+        if (type == TransactionType.TRANSFER && leg.getFromAccountId().equals(leg.getToAccountId())) {
+            return "Cannot transfer to the same account";
+        }
+        try {
+            if (type != TransactionType.DEPOSIT) {
+                validateBatchAccount(leg.getFromAccountId(), accounts, customerStatuses);
+            }
+            if (type != TransactionType.WITHDRAW) {
+                validateBatchAccount(leg.getToAccountId(), accounts, customerStatuses);
+            }
+        } catch (AccountNotFoundException | TransactionRejectedException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    private void validateBatchAccount(Long accountId, Map<Long, AccountDto> accounts, Map<Long, String> customerStatuses) {
+        AccountDto account = accounts.get(accountId);
+        if (account == null) {
+            throw new AccountNotFoundException("Account not found with id: " + accountId);
+        }
+        validateAccountStatus(account);
+        if (account.getCustomerStatus() != null) {
+            validateCustomerStatus(account.getCustomerStatus());
+        } else if (customerStatuses.containsKey(account.getCustomerId())) {
+            validateCustomerStatus(customerStatuses.get(account.getCustomerId()));
+        } else {
+            throw new TransactionRejectedException("Customer not found with id: " + account.getCustomerId());
+        }
+    }
+
+    private BatchTransactionResponse summarize(int total, List<BatchLegResult> all, List<BatchLegResult> latest) {
+        int applied = (int) all.stream().filter(BatchLegResult::isApplied).count();
+        return new BatchTransactionResponse(total, all.size(), applied, all.size() - applied, new ArrayList<>(latest));
+    }
+
+    private Mono<AccountDto> accountById(Map<Long, AccountDto> accounts, Long accountId) {
+        AccountDto account = accounts.get(accountId);
+        return account != null
+                ? Mono.just(account)
+                : Mono.error(new AccountNotFoundException("Account not found with id: " + accountId));
+    }
+
+    private Mono<Map<Long, String>> fetchCustomerStatuses(Map<Long, AccountDto> accounts) {
+        Set<Long> customerIds = new LinkedHashSet<>();
+        accounts.values().stream()
+                .filter(a -> a.getCustomerStatus() == null)
+                .forEach(a -> customerIds.add(a.getCustomerId()));
+        // Only customers batch-status leaves out are rejected per leg; an outage fails the batch before any leg
+        // is applied, like a failed account lookup, instead of reading as "Customer not found"
+        return statusCache.customerStatuses(customerIds);
+    }
+
+    private Mono<AccountDto> validatedAccount(Mono<AccountDto> account) {
+        return account.flatMap(a -> {
+            validateAccountStatus(a);
+            if (a.getCustomerStatus() != null) {
+                // account-service carries the customer status, no second hop needed
+                validateCustomerStatus(a.getCustomerStatus());
+                return Mono.just(a);
+            }
+            // The customer lookup needs the account's customerId, everything else can run side by side
+            return statusCache.customerStatuses(List.of(a.getCustomerId()))
+                    .doOnNext(statuses -> {
+                        if (!statuses.containsKey(a.getCustomerId())) {
+                            throw new TransactionRejectedException("Customer not found with id: " + a.getCustomerId());
+                        }
+                        validateCustomerStatus(statuses.get(a.getCustomerId()));
+                    })
+                    .thenReturn(a);
+        });
     }
 
     private void updateAccountBalance(Long accountId, BigDecimal amount, boolean isDeposit) {
@@ -158,23 +447,66 @@ public class TransactionService {
                         .build(accountId))
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError,
-                    response -> Mono.error(new RuntimeException("Failed to update account balance")))
+                    response -> balanceRejection(response, "Failed to update account balance", List.of(accountId)))
                 .bodyToMono(AccountDto.class)
                 .block();
     }
 
-    private AccountDto getAccountByNumber(String accountNumber) {
-        return accountServiceWebClient.get()
-                .uri("/accounts/number/{accountNumber}", accountNumber)
+    private void transferBalance(Long fromAccountId, Long toAccountId, BigDecimal amount) {
+        Map<String, Object> transferRequest = new HashMap<>();
+        transferRequest.put("fromAccountId", fromAccountId);
+        transferRequest.put("toAccountId", toAccountId);
+        transferRequest.put("amount", amount);
+
+        accountServiceWebClient.post()
+                .uri("/accounts/transfer")
+                .bodyValue(transferRequest)
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError,
-                    response -> Mono.error(new AccountNotFoundException("Account not found: " + accountNumber)))
-                .bodyToMono(AccountDto.class)
+                    response -> balanceRejection(response, "Failed to transfer between accounts",
+                        List.of(fromAccountId, toAccountId)))
+                .bodyToMono(Void.class)
                 .block();
     }
 
-    private void validatePin(String username, String pin) {
-        String response = authServiceWebClient.post()
+    // Maps account-service's error code, not its HTTP status, onto our exceptions. Any 4xx means nothing was
+    // applied, so it surfaces as a rejection rather than an unknown outcome
+    private Mono<Throwable> balanceRejection(ClientResponse response, String fallbackMessage, List<Long> accountIds) {
+        return response.bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .onErrorResume(e -> Mono.just(Map.of()))
+                .defaultIfEmpty(Map.of())
+                .<Throwable>map(body -> {
+                    String code = String.valueOf(body.get("code"));
+                    String message = body.get("message") != null ? body.get("message").toString() : fallbackMessage;
+                    return switch (code) {
+                        case "INSUFFICIENT_BALANCE" -> new InsufficientBalanceException(message);
+                        case "ACCOUNT_NOT_FOUND" -> new AccountNotFoundException(message);
+                        case "INVALID_REQUEST", "VALIDATION_FAILED" -> new IllegalArgumentException(message);
+                        case "ACCOUNT_NOT_ACTIVE" -> {
+                            // Our cached status said active; drop it so the next request sees the change
+                            statusCache.invalidate(accountIds, List.of());
+                            yield new TransactionRejectedException(message);
+                        }
+                        default -> new TransactionRejectedException(message);
+                    };
+                });
+    }
+
+    private Mono<Void> authorizePin(String username, String pin, String pinGrant) {
+        // A valid grant from an earlier PIN check is verified locally; only fall back to auth-service without one
+        if (pinGrant != null && pinGrantVerifier.consume(pinGrant, username)) {
+            meterRegistry.counter("transaction.pin.checks", "source", "grant").increment();
+            return Mono.empty();
+        }
+        if (pin == null) {
+            return Mono.error(new SecurityException("PIN is required"));
+        }
+        meterRegistry.counter("transaction.pin.checks", "source", "auth-service").increment();
+        return validatePin(username, pin);
+    }
+
+    private Mono<Void> validatePin(String username, String pin) {
+        return timed("pin", authServiceWebClient.post()
                 .uri(uriBuilder -> uriBuilder
                         .path("/auth/validate-pin")
                         .queryParam("username", username)
@@ -184,7 +516,7 @@ public class TransactionService {
                 .onStatus(HttpStatusCode::is4xxClientError,
                     r -> Mono.error(new SecurityException("Invalid PIN")))
                 .bodyToMono(String.class)
-                .block();
+                .then());
     }
 
     private void validateAccountStatus(AccountDto account) {
@@ -192,33 +524,29 @@ public class TransactionService {
             return; // Assume active if status not set
         }
         if ("FROZEN".equalsIgnoreCase(account.getStatus())) {
-            throw new IllegalStateException("Account " + account.getAccountNumber() + " is frozen. Transactions are not allowed.");
+            throw new TransactionRejectedException("Account " + account.getAccountNumber() + " is frozen. Transactions are not allowed.");
         }
         if ("CLOSED".equalsIgnoreCase(account.getStatus())) {
-            throw new IllegalStateException("Account " + account.getAccountNumber() + " is closed. Transactions are not allowed.");
+            throw new TransactionRejectedException("Account " + account.getAccountNumber() + " is closed. Transactions are not allowed.");
         }
     }
 
-    private void validateCustomerStatus(Long customerId) {
-        CustomerDto customer = getCustomer(customerId);
-        if (customer.getStatus() == null) {
+    private void validateCustomerStatus(String status) {
+        if (status == null) {
             return; // Assume active if status not set
         }
-        if ("SUSPENDED".equalsIgnoreCase(customer.getStatus())) {
-            throw new IllegalStateException("Customer account is suspended. Transactions are not allowed.");
+        if ("SUSPENDED".equalsIgnoreCase(status)) {
+            throw new TransactionRejectedException("Customer account is suspended. Transactions are not allowed.");
         }
-        if ("INACTIVE".equalsIgnoreCase(customer.getStatus())) {
-            throw new IllegalStateException("Customer account is inactive. Transactions are not allowed.");
+        if ("INACTIVE".equalsIgnoreCase(status)) {
+            throw new TransactionRejectedException("Customer account is inactive. Transactions are not allowed.");
         }
     }
 
-    private CustomerDto getCustomer(Long customerId) {
-        return customerServiceWebClient.get()
-                .uri("/customers/{id}", customerId)
-                .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError,
-                    response -> Mono.error(new RuntimeException("Customer not found with id: " + customerId)))
-                .bodyToMono(CustomerDto.class)
-                .block();
+    private <T> Mono<T> timed(String stage, Mono<T> mono) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return mono.doFinally(signal -> sample.stop(meterRegistry.timer("transaction.validation", "stage", stage)));
+        });
     }
 }
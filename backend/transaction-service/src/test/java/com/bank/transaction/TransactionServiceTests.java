@@ -1,13 +1,59 @@
 package com.bank.transaction;
 
+import com.bank.transaction.dto.AccountDto;
+import com.bank.transaction.dto.BatchLeg;
+import com.bank.transaction.dto.BatchTransactionResponse;
+import com.bank.transaction.dto.TransactionPage;
+import com.bank.transaction.entity.SnapshotRepair;
 import com.bank.transaction.entity.Transaction;
+import com.bank.transaction.exception.DuplicateRequestException;
+import com.bank.transaction.exception.IdempotencyKeyMismatchException;
+import com.bank.transaction.exception.InsufficientBalanceException;
+import com.bank.transaction.repository.PendingBatchLegRepository;
+import com.bank.transaction.repository.PinGrantUseRepository;
+import com.bank.transaction.repository.SnapshotRepairRepository;
+import com.bank.transaction.repository.TransactionBatchWriter;
 import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.security.PinGrantVerifier;
+import com.bank.transaction.service.BalanceSnapshotService;
+import com.bank.transaction.service.BatchLegJournal;
+import com.bank.transaction.service.IdempotencyService;
+import com.bank.transaction.service.StatementService;
+import com.bank.transaction.service.StatusCache;
+import com.bank.transaction.service.TransactionService;
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.security.Key;
+import java.security.KeyPair;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -17,6 +63,39 @@ class TransactionServiceTests {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private TransactionBatchWriter transactionBatchWriter;
+
+    @Autowired
+    private PendingBatchLegRepository pendingBatchLegRepository;
+
+    @Autowired
+    private BatchLegJournal batchLegJournal;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private SnapshotRepairRepository snapshotRepairRepository;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private PinGrantVerifier pinGrantVerifier;
+
+    @Autowired
+    private PinGrantUseRepository pinGrantUseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Test
     void contextLoads() {
         assertNotNull(transactionRepository);
@@ -87,6 +166,294 @@ class TransactionServiceTests {
         assertFalse(transactions.isEmpty());
     }
 
+    @Test
+    void shouldBatchInsertTransactions() {
+        transactionBatchWriter.insertAll(List.of(
+                Transaction.builder()
+                        .fromAccountId(7777L)
+                        .toAccountId(7778L)
+                        .amount(BigDecimal.valueOf(100))
+                        .transactionType(Transaction.TransactionType.TRANSFER)
+                        .description("Payroll")
+                        .build(),
+                Transaction.builder()
+                        .toAccountId(7777L)
+                        .amount(BigDecimal.valueOf(50))
+                        .transactionType(Transaction.TransactionType.DEPOSIT)
+                        .build()));
+
+        List<Transaction> transactions = transactionRepository.findByAccountId(7777L);
+
+        assertEquals(2, transactions.size());
+        assertTrue(transactions.stream().allMatch(t -> t.getTimestamp() != null));
+    }
+
+    @Test
+    void shouldJournalBatchLegsUntilTheirOutcomeIsRecorded() {
+        Transaction leg = Transaction.builder()
+                .toAccountId(8888L)
+                .amount(BigDecimal.valueOf(40))
+                .transactionType(Transaction.TransactionType.DEPOSIT)
+                .build();
+        String applied = batchLegJournal.record(List.of(leg));
+        String lost = batchLegJournal.record(List.of(leg));
+        batchLegJournal.complete(applied, List.of(leg));
+
+        assertEquals(1, transactionRepository.findByAccountId(8888L).size());
+        // Only the chunk whose outcome was never recorded is left for reconciliation
+        BatchLegJournal overdue = new BatchLegJournal(transactionBatchWriter, pendingBatchLegRepository,
+                new SimpleMeterRegistry(), Duration.ofSeconds(-1));
+        assertEquals(1, overdue.checkUnreconciled());
+        batchLegJournal.discard(lost);
+        assertEquals(0, overdue.checkUnreconciled());
+    }
+
+    @Test
+    void shouldPageThroughAccountHistory() {
+        for (int i = 0; i < 5; i++) {
+            transactionRepository.save(Transaction.builder()
+                    .fromAccountId(i % 2 == 0 ? 5555L : 5556L)
+                    .toAccountId(i % 2 == 0 ? 5556L : 5555L)
+                    .amount(BigDecimal.valueOf(10 + i))
+                    .transactionType(Transaction.TransactionType.TRANSFER)
+                    .build());
+        }
+
+        Set<Long> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionPage page = transactionService.getTransactionPage(5555L, cursor, 2, null, null, null);
+            page.getTransactions().forEach(t -> assertTrue(seen.add(t.getTransactionId())));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(5, seen.size());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void shouldExportStatementAsCsv() throws Exception {
+        transactionRepository.save(Transaction.builder()
+                .toAccountId(4444L)
+                .amount(BigDecimal.valueOf(300))
+                .transactionType(Transaction.TransactionType.DEPOSIT)
+                .description("Salary, March")
+                .build());
+        transactionRepository.save(Transaction.builder()
+                .fromAccountId(4444L)
+                .amount(BigDecimal.valueOf(20))
+                .transactionType(Transaction.TransactionType.WITHDRAW)
+                .build());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        statementService.writeStatement(4444L, null, null, StatementService.StatementFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].contains("DEPOSIT,CREDIT,300") && lines[1].endsWith("\"Salary, March\""));
+        assertTrue(lines[2].contains("WITHDRAW,DEBIT,20"));
+    }
+
+    @Test
+    void shouldAnswerBalanceAsOfFromSnapshots() {
+        Transaction deposit = transactionRepository.save(Transaction.builder()
+                .toAccountId(3333L)
+                .amount(BigDecimal.valueOf(300))
+                .transactionType(Transaction.TransactionType.DEPOSIT)
+                .build());
+        Transaction withdrawal = transactionRepository.save(Transaction.builder()
+                .fromAccountId(3333L)
+                .amount(BigDecimal.valueOf(20))
+                .transactionType(Transaction.TransactionType.WITHDRAW)
+                .build());
+
+        balanceSnapshotService.record(List.of(deposit, withdrawal));
+
+        // Tomorrow's balance comes entirely from today's checkpoint
+        BigDecimal balance = balanceSnapshotService.balanceAsOf(3333L, LocalDateTime.now().plusDays(1)).getBalance();
+        assertEquals(BigDecimal.valueOf(280).compareTo(balance), 0);
+        assertEquals(1, balanceSnapshotService.rebuild(3333L));
+        assertEquals(BigDecimal.valueOf(280).compareTo(
+                balanceSnapshotService.balanceAsOf(3333L, LocalDateTime.now().plusDays(1)).getBalance()), 0);
+    }
+
+    @Test
+    void shouldRebuildFirstSnapshotOfAccountWithEarlierHistory() {
+        // History from before snapshots were kept, as inserted by sql/schema.sql
+        transactionBatchWriter.insertAll(List.of(Transaction.builder()
+                .toAccountId(3535L)
+                .amount(BigDecimal.valueOf(500))
+                .transactionType(Transaction.TransactionType.DEPOSIT)
+                .timestamp(LocalDateTime.now().minusDays(10))
+                .build()));
+        assertEquals(BigDecimal.valueOf(500).compareTo(
+                balanceSnapshotService.balanceAsOf(3535L, LocalDateTime.now()).getBalance()), 0);
+
+        Transaction deposit = transactionRepository.save(Transaction.builder()
+                .toAccountId(3535L)
+                .amount(BigDecimal.valueOf(100))
+                .transactionType(Transaction.TransactionType.DEPOSIT)
+                .build());
+        balanceSnapshotService.record(List.of(deposit));
+
+        assertTrue(snapshotRepairRepository.existsById(3535L));
+        assertEquals(BigDecimal.valueOf(600).compareTo(
+                balanceSnapshotService.balanceAsOf(3535L, LocalDateTime.now().plusDays(1)).getBalance()), 0);
+        assertTrue(balanceSnapshotService.repairMarked() >= 1);
+        assertFalse(snapshotRepairRepository.existsById(3535L));
+        assertEquals(BigDecimal.valueOf(600).compareTo(
+                balanceSnapshotService.balanceAsOf(3535L, LocalDateTime.now().plusDays(1)).getBalance()), 0);
+        assertEquals(BigDecimal.valueOf(500).compareTo(
+                balanceSnapshotService.balanceAsOf(3535L, LocalDateTime.now().minusDays(5)).getBalance()), 0);
+    }
+
+    @Test
+    void shouldAnswerFromHistoryAndRebuildSnapshotsMarkedForRepair() {
+        transactionRepository.save(Transaction.builder()
+                .toAccountId(3434L)
+                .amount(BigDecimal.valueOf(50))
+                .transactionType(Transaction.TransactionType.DEPOSIT)
+                .build());
+        // The snapshot update for this deposit failed and only left a repair mark
+        snapshotRepairRepository.save(SnapshotRepair.builder()
+                .accountId(3434L)
+                .markedAt(LocalDateTime.now().minusSeconds(1))
+                .build());
+
+        assertEquals(BigDecimal.valueOf(50).compareTo(
+                balanceSnapshotService.balanceAsOf(3434L, LocalDateTime.now().plusDays(1)).getBalance()), 0);
+        assertTrue(balanceSnapshotService.repairMarked() >= 1);
+        assertFalse(snapshotRepairRepository.existsById(3434L));
+        assertEquals(BigDecimal.valueOf(50).compareTo(
+                balanceSnapshotService.balanceAsOf(3434L, LocalDateTime.now().plusDays(1)).getBalance()), 0);
+    }
+
+    @Test
+    void shouldReplayTransactionForRepeatedIdempotencyKey() {
+        AtomicInteger executions = new AtomicInteger();
+        Map<String, Object> request = Map.of("accountId", 5600L, "amount", 10);
+
+        Transaction first = idempotencyService.execute("retry-key-1", "deposit", request, scopedKey -> {
+            executions.incrementAndGet();
+            return saveDeposit(scopedKey, BigDecimal.TEN);
+        });
+        Transaction retried = idempotencyService.execute("retry-key-1", "deposit", request, scopedKey -> {
+            executions.incrementAndGet();
+            throw new IllegalStateException("should not run twice");
+        });
+
+        assertEquals(1, executions.get());
+        assertEquals(first.getTransactionId(), retried.getTransactionId());
+    }
+
+    @Test
+    void shouldReleaseIdempotencyKeyOnlyWhenRequestWasRejected() {
+        Map<String, Object> request = Map.of("accountId", 5600L, "amount", 1);
+        assertThrows(InsufficientBalanceException.class, () -> idempotencyService.execute("retry-key-2", "withdraw", request,
+                scopedKey -> {
+                    throw new InsufficientBalanceException("Insufficient balance");
+                }));
+        Transaction saved = idempotencyService.execute("retry-key-2", "withdraw", request,
+                scopedKey -> saveDeposit(scopedKey, BigDecimal.ONE));
+        assertNotNull(saved.getTransactionId());
+
+        // A failure after the balance call may have moved money, so the key is never run again
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("retry-key-3", "withdraw", request,
+                scopedKey -> {
+                    throw new IllegalStateException("account-service timed out");
+                }));
+        assertThrows(DuplicateRequestException.class, () -> idempotencyService.execute("retry-key-3", "withdraw", request,
+                scopedKey -> saveDeposit(scopedKey, BigDecimal.ONE)));
+    }
+
+    @Test
+    void shouldScopeIdempotencyKeyToCallerAndRequest() {
+        Map<String, Object> request = Map.of("accountId", 5600L, "amount", 5);
+        Transaction mine = idempotencyService.execute("shared-key", "deposit", request,
+                scopedKey -> saveDeposit(scopedKey, BigDecimal.valueOf(5)));
+
+        assertThrows(IdempotencyKeyMismatchException.class, () -> idempotencyService.execute("shared-key", "deposit",
+                Map.of("accountId", 5600L, "amount", 6), scopedKey -> saveDeposit(scopedKey, BigDecimal.valueOf(6))));
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("someone_else", null, List.of()));
+        try {
+            Transaction theirs = idempotencyService.execute("shared-key", "deposit", request,
+                    scopedKey -> saveDeposit(scopedKey, BigDecimal.valueOf(5)));
+            assertNotEquals(mine.getTransactionId(), theirs.getTransactionId());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    void shouldResolveIdempotencyKeyWhoseCompletionWasNotRecorded() {
+        Map<String, Object> request = Map.of("accountId", 5600L, "amount", 7);
+        // The transaction row was saved but the request died before the key was marked complete
+        AtomicReference<Transaction> saved = new AtomicReference<>();
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("retry-key-4", "deposit", request,
+                scopedKey -> {
+                    saved.set(saveDeposit(scopedKey, BigDecimal.valueOf(7)));
+                    throw new IllegalStateException("connection reset");
+                }));
+
+        Transaction retried = idempotencyService.execute("retry-key-4", "deposit", request, scopedKey -> {
+            throw new IllegalStateException("should not run twice");
+        });
+        assertEquals(saved.get().getTransactionId(), retried.getTransactionId());
+    }
+
+    private Transaction saveDeposit(String idempotencyKey, BigDecimal amount) {
+        return transactionRepository.save(Transaction.builder()
+                .toAccountId(5600L)
+                .amount(amount)
+                .transactionType(Transaction.TransactionType.DEPOSIT)
+                .idempotencyKey(idempotencyKey)
+                .build());
+    }
+
+    @Test
+    void shouldHonourPinGrantForLimitedUses() {
+        KeyPair keyPair = Jwts.SIG.ES256.keyPair().build();
+        LocatorAdapter<Key> keyLocator = new LocatorAdapter<>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                return "k1".equals(header.getKeyId()) ? keyPair.getPublic() : null;
+            }
+        };
+        // Two replicas sharing the database
+        PinGrantVerifier verifier = new PinGrantVerifier(keyLocator, pinGrantUseRepository, transactionManager);
+        PinGrantVerifier otherReplica = new PinGrantVerifier(keyLocator, pinGrantUseRepository, transactionManager);
+        String grant = Jwts.builder()
+                .header().keyId("k1").type("pin-grant+jwt").and()
+                .id(UUID.randomUUID().toString())
+                .subject("granted_user")
+                .claim("scope", "pin:money-movement")
+                .claim("uses", 2)
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(keyPair.getPrivate(), Jwts.SIG.ES256)
+                .compact();
+        // A login token signed with the same key is not a grant
+        String loginToken = Jwts.builder()
+                .header().keyId("k1").and()
+                .id(UUID.randomUUID().toString())
+                .subject("granted_user")
+                .claim("scope", "pin:money-movement")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(keyPair.getPrivate(), Jwts.SIG.ES256)
+                .compact();
+
+        assertFalse(verifier.consume(loginToken, "granted_user"));
+        assertFalse(verifier.consume(grant, "someone_else"));
+        assertTrue(verifier.consume(grant, "granted_user"));
+        assertTrue(otherReplica.consume(grant, "granted_user"));
+        assertFalse(verifier.consume(grant, "granted_user"));
+        assertFalse(otherReplica.consume(grant, "granted_user"));
+        assertFalse(verifier.consume("not-a-grant", "granted_user"));
+    }
+
     @Test
     void transactionTypeEnumValues() {
         assertEquals(3, Transaction.TransactionType.values().length);
@@ -107,4 +474,115 @@ class TransactionServiceTests {
 
         assertNotNull(saved.getTimestamp());
     }
+
+    @Test
+    void shouldCoalesceStatusLookupsAndDropEntriesOnNotification() throws Exception {
+        AtomicInteger accountCalls = new AtomicInteger();
+        AtomicInteger customerCalls = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/accounts/batch-lookup", exchange -> {
+            accountCalls.incrementAndGet();
+            try {
+                Thread.sleep(200); // keep the lookup in flight while the other callers arrive
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = ("[{\"accountId\":1,\"customerId\":10,\"accountNumber\":\"ACC1\","
+                    + "\"balance\":500.00,\"status\":\"ACTIVE\"}]").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/customers/batch-status", exchange -> {
+            customerCalls.incrementAndGet();
+            byte[] body = "{\"10\":\"SUSPENDED\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        try {
+            WebClient client = WebClient.create("http://localhost:" + server.getAddress().getPort());
+            StatusCache cache = new StatusCache(client, client, new SimpleMeterRegistry(), Duration.ofMinutes(1), 100);
+
+            List<CompletableFuture<AccountDto>> lookups = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                lookups.add(CompletableFuture.supplyAsync(() -> cache.account(1L).block()));
+            }
+            for (CompletableFuture<AccountDto> lookup : lookups) {
+                AccountDto account = lookup.get();
+                assertEquals("ACTIVE", account.getStatus());
+                assertNull(account.getBalance()); // balances are never served from the cache
+            }
+            assertEquals(1, accountCalls.get());
+
+            // Unknown ids come back absent; the number was learned from the first lookup
+            assertFalse(cache.accounts(List.of(2L)).block().containsKey(2L));
+            assertEquals(1L, cache.accountByNumber("ACC1").block().getAccountId());
+            int afterNumberLookup = accountCalls.get();
+
+            assertEquals("SUSPENDED", cache.customerStatuses(List.of(10L)).block().get(10L));
+            cache.customerStatuses(List.of(10L)).block();
+            assertEquals(1, customerCalls.get());
+
+            // A customer notification drops the customer and the cached accounts that copy its status
+            cache.invalidate(List.of(), List.of(10L));
+            cache.account(1L).block();
+            cache.customerStatuses(List.of(10L)).block();
+            assertEquals(afterNumberLookup + 1, accountCalls.get());
+            assertEquals(2, customerCalls.get());
+
+            cache.invalidate(List.of(1L), List.of());
+            cache.account(1L).block();
+            assertEquals(afterNumberLookup + 2, accountCalls.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldFailBatchWhenCustomerStatusesCannotBeLoaded() throws Exception {
+        AtomicBoolean customerServiceDown = new AtomicBoolean(true);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/accounts/batch-lookup", exchange -> {
+            byte[] body = "[{\"accountId\":1,\"customerId\":10,\"status\":\"ACTIVE\"}]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/customers/batch-status", exchange -> {
+            if (customerServiceDown.get()) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        try {
+            WebClient client = WebClient.create("http://localhost:" + server.getAddress().getPort());
+            StatusCache cache = new StatusCache(client, client, new SimpleMeterRegistry(), Duration.ofMinutes(1), 100);
+            TransactionService service = new TransactionService(transactionRepository, batchLegJournal,
+                    balanceSnapshotService, pinGrantVerifier, client, client, cache, new SimpleMeterRegistry());
+            List<BatchLeg> legs = List.of(new BatchLeg(Transaction.TransactionType.DEPOSIT, null, 1L, new BigDecimal("10.00"), null));
+
+            // An outage is not reported as a missing customer
+            assertThrows(WebClientResponseException.class, () -> service.processBatch(legs, progress -> { }));
+
+            // A customer batch-status leaves out is rejected per leg
+            customerServiceDown.set(false);
+            BatchTransactionResponse response = service.processBatch(legs, progress -> { });
+            assertEquals(0, response.getApplied());
+            assertEquals("Customer not found with id: 10", response.getResults().get(0).getMessage());
+        } finally {
+            server.stop(0);
+        }
+    }
 }
@@ -59,6 +59,7 @@ export const customerApi = {
 export const accountApi = {
   getAll: () => api.get('/accounts'),
   getById: (id) => api.get(`/accounts/${id}`),
+  batchLookup: (accountIds, accountNumbers) => api.post('/accounts/batch-lookup', { accountIds, accountNumbers }),
   getByCustomerId: (customerId) => api.get(`/accounts/customer/${customerId}`),
   getByUsername: (username) => api.get(`/accounts/user/${username}`),
   create: (data) => api.post('/accounts', data),
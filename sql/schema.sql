@@ -15,6 +15,61 @@ CREATE TABLE users (
     transaction_pin VARCHAR(255)
 );
 
+-- ES256 JWT signing keys; the newest signs, older ones stay in the JWKS until their tokens expire
+CREATE TABLE signing_keys (
+    kid VARCHAR(64) PRIMARY KEY,
+    algorithm VARCHAR(20) NOT NULL,
+    public_key VARCHAR(1024) NOT NULL,
+    private_key VARCHAR(2048) NOT NULL, -- AES-GCM encrypted under jwt.signing.encryption-key
+    created_at TIMESTAMP NOT NULL
+);
+
+-- Token revocations; (revoked_at, id) is the keyset cursor services pull from
+-- GET /auth/revocations?since=<revoked_at epoch millis>&afterId=<id>
+CREATE TABLE revoked_tokens (
+    id BIGSERIAL PRIMARY KEY,
+    revocation_key VARCHAR(255) NOT NULL,
+    revoked_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_revoked_tokens_key ON revoked_tokens (revocation_key);
+CREATE INDEX idx_revoked_tokens_revoked_at ON revoked_tokens (revoked_at, id);
+
+-- Registration sagas: customer profile and account provisioning after the user row is committed
+CREATE TABLE registration_sagas (
+    id BIGSERIAL PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    state VARCHAR(30) NOT NULL,
+    name VARCHAR(255),
+    email VARCHAR(255),
+    phone VARCHAR(255),
+    address VARCHAR(255),
+    account_type VARCHAR(255),
+    initial_deposit DECIMAL(19, 2),
+    customer_id BIGINT,
+    account_id BIGINT,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+    next_attempt_at TIMESTAMP,
+    lease_until TIMESTAMP,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP
+);
+
+CREATE INDEX idx_registration_sagas_username ON registration_sagas (username);
+CREATE INDEX idx_registration_sagas_due ON registration_sagas (state, next_attempt_at);
+
+-- Login throttle counts shared between replicas (only used with auth.login-throttle.cluster-sync)
+CREATE TABLE login_attempt_windows (
+    id VARCHAR(320) PRIMARY KEY,
+    throttle_key VARCHAR(300) NOT NULL,
+    window_start BIGINT NOT NULL,
+    attempts BIGINT NOT NULL
+);
+
+CREATE INDEX idx_login_attempt_windows_start ON login_attempt_windows (window_start);
+
 -- Default users (passwords are BCrypt hashed: admin123, user123)
 INSERT INTO users (username, password, role) VALUES
 ('admin', '$2a$10$EqKcp1WFKVQISheBxkV.qOXEhRPvPMio/qkYHX7aGhgfvpxdPCxLi', 'ADMIN'),
@@ -30,9 +85,12 @@ CREATE TABLE customers (
     email VARCHAR(255) NOT NULL UNIQUE,
     phone VARCHAR(50) NOT NULL,
     address VARCHAR(500) NOT NULL,
-    status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE'
+    status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',
+    status_sync_pending BOOLEAN NOT NULL DEFAULT FALSE  -- status change not yet acknowledged by account-service
 );
 
+CREATE INDEX idx_customers_name ON customers(name, customer_id);
+
 -- Sample customers
 INSERT INTO customers (name, email, phone, address) VALUES
 ('John Doe', 'john.doe@example.com', '555-0101', '123 Main St, City'),
@@ -50,10 +108,36 @@ CREATE TABLE accounts (
     balance DECIMAL(19, 2) NOT NULL DEFAULT 0.00,
     status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    closed_at TIMESTAMP
+    closed_at TIMESTAMP,
+    customer_status VARCHAR(20) DEFAULT 'ACTIVE'
 );
 
 CREATE INDEX idx_accounts_customer_id ON accounts(customer_id);
+CREATE INDEX idx_accounts_created_at ON accounts(created_at, account_id);
+
+-- Account number blocks; each node leases [range_start, range_end) from the highest range_end and allocates
+-- in memory. The unique range_start turns a concurrent lease of the same range into a retry.
+CREATE SEQUENCE account_number_block_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE account_number_blocks (
+    block_id BIGINT PRIMARY KEY,
+    block_size INTEGER NOT NULL,
+    range_start BIGINT UNIQUE,
+    range_end BIGINT,
+    leased_by VARCHAR(255) NOT NULL,
+    leased_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE outbox_events (
+    event_id BIGSERIAL PRIMARY KEY,
+    account_id BIGINT NOT NULL,
+    event_type VARCHAR(20) NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    published_at TIMESTAMP
+);
+
+CREATE INDEX idx_outbox_events_unpublished ON outbox_events(published_at, event_id);
 
 -- Sample accounts
 INSERT INTO accounts (customer_id, account_number, account_type, balance) VALUES
@@ -72,11 +156,62 @@ CREATE TABLE transactions (
     amount DECIMAL(19, 2) NOT NULL,
     transaction_type VARCHAR(20) NOT NULL,
     timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    description VARCHAR(500)
+    description VARCHAR(500),
+    idempotency_key VARCHAR(64) UNIQUE
+);
+
+CREATE INDEX idx_transactions_from_account_ts ON transactions(from_account_id, timestamp);
+CREATE INDEX idx_transactions_to_account_ts ON transactions(to_account_id, timestamp);
+
+CREATE TABLE balance_snapshots (
+    snapshot_id BIGSERIAL PRIMARY KEY,
+    account_id BIGINT NOT NULL,
+    snapshot_date DATE NOT NULL,
+    credits DECIMAL(19, 2) NOT NULL,
+    debits DECIMAL(19, 2) NOT NULL,
+    closing_balance DECIMAL(19, 2) NOT NULL,
+    CONSTRAINT uk_balance_snapshots_account_date UNIQUE (account_id, snapshot_date)
+);
+
+-- Accounts whose snapshots missed an update; as-of balances scan full history until the rebuild clears them
+CREATE TABLE balance_snapshot_repairs (
+    account_id BIGINT PRIMARY KEY,
+    marked_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(64) PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    transaction_id BIGINT,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
+
+-- Uses left on each PIN grant, shared by all transaction-service replicas; purged after the grant expires
+CREATE TABLE pin_grant_uses (
+    grant_id VARCHAR(36) PRIMARY KEY,
+    remaining INTEGER NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_pin_grant_uses_expires_at ON pin_grant_uses(expires_at);
+
+-- Batch legs journaled before account-service applies their chunk; leftovers need reconciliation
+CREATE TABLE pending_batch_legs (
+    id BIGSERIAL PRIMARY KEY,
+    chunk_id VARCHAR(36) NOT NULL,
+    from_account_id BIGINT,
+    to_account_id BIGINT,
+    amount DECIMAL(19, 2) NOT NULL,
+    transaction_type VARCHAR(20) NOT NULL,
+    description VARCHAR(255),
+    created_at TIMESTAMP NOT NULL
 );
 
-CREATE INDEX idx_transactions_from_account ON transactions(from_account_id);
-CREATE INDEX idx_transactions_to_account ON transactions(to_account_id);
+CREATE INDEX idx_pending_batch_legs_chunk ON pending_batch_legs(chunk_id);
+CREATE INDEX idx_pending_batch_legs_created_at ON pending_batch_legs(created_at);
 
 -- Sample transactions
 INSERT INTO transactions (from_account_id, to_account_id, amount, transaction_type, description) VALUES